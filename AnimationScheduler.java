@@ -0,0 +1,58 @@
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.Timer;
+
+
+// Drives frame-based animations only while a scene that shows them is visible. Its Timer is
+// stopped otherwise, and stays stopped when a GameLoop steps the animations itself.
+class AnimationScheduler {
+  private final Timer timer;
+  private final List<Runnable> animations = new ArrayList<>();
+  private boolean sceneVisible = false;
+  private boolean externallyDriven = false;
+
+
+  public AnimationScheduler(TimerGroup timers, int periodMillis) {
+      this.timer = timers.create(periodMillis, e -> step());
+  }
+
+
+  public void add(Runnable animation) {
+      animations.add(animation);
+  }
+
+
+  public void setSceneVisible(boolean sceneVisible) {
+      this.sceneVisible = sceneVisible;
+      updateTimer();
+  }
+
+
+  public void setExternallyDriven(boolean externallyDriven) {
+      this.externallyDriven = externallyDriven;
+      updateTimer();
+  }
+
+
+  // Advances every animation by one frame; a no-op while no animated scene is visible.
+  public void step() {
+      if (!sceneVisible) return;
+      for (int i = 0; i < animations.size(); i++) {
+          animations.get(i).run();
+      }
+  }
+
+
+  public boolean isRunning() {
+      return timer.isRunning();
+  }
+
+
+  private void updateTimer() {
+      if (sceneVisible && !externallyDriven) {
+          if (!timer.isRunning()) timer.start();
+      } else {
+          timer.stop();
+      }
+  }
+}
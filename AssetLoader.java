@@ -0,0 +1,141 @@
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+
+
+// Decodes images and fonts on a small daemon worker pool. Every request returns a future that is
+// cached by path and size, so callers request everything up front and only wait on what the
+// current screen needs. Logs how long each asset took and when milestones are reached.
+class AssetLoader {
+  private final ExecutorService pool;
+  private final ConcurrentHashMap<String, CompletableFuture<BufferedImage>> images = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, CompletableFuture<Font>> fonts = new ConcurrentHashMap<>();
+  private final long createdNanos = System.nanoTime();
+
+
+  public AssetLoader() {
+      int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+      AtomicInteger threadCount = new AtomicInteger();
+      this.pool = Executors.newFixedThreadPool(threads, r -> {
+          Thread t = new Thread(r, "asset-loader-" + threadCount.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+      });
+  }
+
+
+  // Native size when width/height are 0, otherwise scaled once to that size.
+  public CompletableFuture<BufferedImage> requestImage(String path, int width, int height) {
+      return images.computeIfAbsent(imageKey(path, width, height),
+              k -> CompletableFuture.supplyAsync(() -> decodeImage(path, width, height), pool));
+  }
+
+
+  public static String imageKey(String path, int width, int height) {
+      return width > 0 ? path + "@" + width + "x" + height : path;
+  }
+
+
+  // Drops a cached asset so its decoded pixels can be collected; the next request decodes it again.
+  public void evictImage(String key) {
+      images.remove(key);
+  }
+
+
+  public void evictFont(String path) {
+      fonts.remove(path);
+  }
+
+
+  public CompletableFuture<BufferedImage> requestImage(String path) {
+      return requestImage(path, 0, 0);
+  }
+
+
+  public CompletableFuture<Font> requestFont(String path) {
+      return fonts.computeIfAbsent(path, k -> CompletableFuture.supplyAsync(() -> decodeFont(path), pool));
+  }
+
+
+  // Blocks until the asset is decoded; null if it is missing or failed to decode.
+  public BufferedImage image(String path, int width, int height) {
+      return requestImage(path, width, height).join();
+  }
+
+
+  public BufferedImage image(String path) {
+      return requestImage(path).join();
+  }
+
+
+  public Font font(String path) {
+      return requestFont(path).join();
+  }
+
+
+  public void logMilestone(String milestone) {
+      System.out.printf("[assets] %s after %.1f ms%n", milestone, millisSince(createdNanos));
+  }
+
+
+  // Logs once every asset requested so far has finished decoding.
+  public void logWhenIdle(String milestone) {
+      CompletableFuture<?>[] pending = new CompletableFuture<?>[images.size() + fonts.size()];
+      int i = 0;
+      for (CompletableFuture<?> future : images.values()) pending[i++] = future;
+      for (CompletableFuture<?> future : fonts.values()) pending[i++] = future;
+      CompletableFuture.allOf(pending).thenRun(() -> logMilestone(milestone + " (" + pending.length + " assets)"));
+  }
+
+
+  private BufferedImage decodeImage(String path, int width, int height) {
+      long start = System.nanoTime();
+      File file = new File(path);
+      if (!file.exists()) {
+          System.err.println("Warning: Image not found: " + path);
+          return null;
+      }
+      try {
+          BufferedImage decoded = ImageIO.read(file);
+          BufferedImage converted = width > 0 ? CompatibleImages.convert(decoded, width, height) : CompatibleImages.convert(decoded);
+          logAsset(path, start);
+          return converted;
+      } catch (IOException e) {
+          System.err.println("Error loading image: " + path + " - " + e.getMessage());
+          return null;
+      }
+  }
+
+
+  private Font decodeFont(String path) {
+      long start = System.nanoTime();
+      try {
+          Font font = Font.createFont(Font.TRUETYPE_FONT, new File(path));
+          GraphicsEnvironment.getLocalGraphicsEnvironment().registerFont(font);
+          logAsset(path, start);
+          return font;
+      } catch (FontFormatException | IOException e) {
+          System.err.println("Error loading font: " + path + " - " + e.getMessage());
+          return null;
+      }
+  }
+
+
+  private void logAsset(String path, long startNanos) {
+      System.out.printf("[assets] %-36s %6.1f ms  (%s)%n", path, millisSince(startNanos), Thread.currentThread().getName());
+  }
+
+
+  private static double millisSince(long startNanos) {
+      return (System.nanoTime() - startNanos) / 1_000_000.0;
+  }
+}
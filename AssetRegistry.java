@@ -0,0 +1,104 @@
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+
+// Process-wide, reference-counted front for one shared AssetLoader. Screens take a Lease, pull
+// assets through it and close it when they go away; an asset stays decoded while any lease holds
+// it, so switching screens or opening another window never goes back to disk for it.
+final class AssetRegistry {
+  private static final AssetRegistry SHARED = new AssetRegistry(new AssetLoader());
+
+
+  private final AssetLoader loader;
+  private final Map<String, Integer> imageRefs = new HashMap<>();
+  private final Map<String, Integer> fontRefs = new HashMap<>();
+
+
+  AssetRegistry(AssetLoader loader) {
+      this.loader = loader;
+  }
+
+
+  public static AssetRegistry shared() { return SHARED; }
+  public AssetLoader getLoader() { return loader; }
+  public Lease newLease() { return new Lease(); }
+
+
+  public synchronized int getImageRefCount(String key) { return imageRefs.getOrDefault(key, 0); }
+
+
+  private synchronized void retainImage(String key) {
+      imageRefs.merge(key, 1, Integer::sum);
+  }
+
+
+  private synchronized void releaseImage(String key) {
+      if (imageRefs.merge(key, -1, Integer::sum) <= 0) {
+          imageRefs.remove(key);
+          loader.evictImage(key);
+      }
+  }
+
+
+  private synchronized void retainFont(String path) {
+      fontRefs.merge(path, 1, Integer::sum);
+  }
+
+
+  private synchronized void releaseFont(String path) {
+      if (fontRefs.merge(path, -1, Integer::sum) <= 0) {
+          fontRefs.remove(path);
+          loader.evictFont(path);
+      }
+  }
+
+
+  // The set of assets one owner (a screen or window) holds. Each asset is retained once per
+  // lease no matter how often it is requested; close() releases everything it retained.
+  final class Lease implements AutoCloseable {
+      private final Set<String> images = new LinkedHashSet<>();
+      private final Set<String> fonts = new LinkedHashSet<>();
+      private boolean closed = false;
+
+
+      public synchronized CompletableFuture<BufferedImage> requestImage(String path, int width, int height) {
+          String key = AssetLoader.imageKey(path, width, height);
+          if (!closed && images.add(key)) retainImage(key);
+          return loader.requestImage(path, width, height);
+      }
+
+
+      public CompletableFuture<BufferedImage> requestImage(String path) {
+          return requestImage(path, 0, 0);
+      }
+
+
+      public synchronized CompletableFuture<Font> requestFont(String path) {
+          if (!closed && fonts.add(path)) retainFont(path);
+          return loader.requestFont(path);
+      }
+
+
+      public BufferedImage image(String path, int width, int height) { return requestImage(path, width, height).join(); }
+      public BufferedImage image(String path) { return requestImage(path).join(); }
+      public Font font(String path) { return requestFont(path).join(); }
+      public void logMilestone(String milestone) { loader.logMilestone(milestone); }
+      public void logWhenIdle(String milestone) { loader.logWhenIdle(milestone); }
+
+
+      @Override
+      public synchronized void close() {
+          if (closed) return;
+          closed = true;
+          for (String key : images) releaseImage(key);
+          for (String path : fonts) releaseFont(path);
+          images.clear();
+          fonts.clear();
+      }
+  }
+}
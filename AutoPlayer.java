@@ -0,0 +1,288 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+
+// Placement-search bot. For the falling piece it enumerates every rotation and column it can
+// reach from where the piece is now (turning either way with the engine's rotation system, wall
+// kicks included, then shifting sideways, as GameEngine.step allows), hard drops it on a
+// scratch board, and scores the result with a PlacementHeuristic. Deeper levels repeat this
+// for the preview pieces from their spawn position, and beyond the known pieces average over
+// all seven types. The first level can be split across cores with fork/join.
+class AutoPlayer implements PlayPolicy {
+  public static final int DEFAULT_DEPTH = 2;
+  private static final double LOSS = -1e9;
+  // A depth-1 search is a few dozen evaluations, too little to be worth forking
+  private static final int PARALLEL_MIN_DEPTH = 2;
+  // Ways to turn before sliding: none, then one, two and three turns clockwise and
+  // counter-clockwise, alternating, so each state is first reached with the fewest turns
+  private static final int TURN_PATHS = 2 * PieceTable.MAX_ROTATIONS - 1;
+
+
+  private final PlacementHeuristic heuristic;
+  private final int depth;
+  private final ForkJoinPool pool;
+  private final LongAdder evaluations = new LongAdder();
+  private long searchNanos;
+  private long moves;
+
+
+  // Scratch state for the serial search, reused across moves.
+  private final GameBoard[] scratch;
+  // The same for each fork/join worker, so parallel leaves do not allocate boards either.
+  private final ThreadLocal<GameBoard[]> workerScratch;
+  // The falling piece, then the preview queue, as far as the search depth reaches.
+  private final int[] pieces = new int[1 + GameEngine.MAX_PREVIEW];
+  private int knownPieces;
+  private RotationSystem rotationSystem;
+  private final int[] candidateShapes = new int[PieceTable.MAX_ROTATIONS * GameBoard.COLS];
+  // Turns to reach each candidate's state, negative for counter-clockwise
+  private final int[] candidateTurns = new int[candidateShapes.length];
+  private final int[] candidateX = new int[candidateShapes.length];
+  private final int[] candidateY = new int[candidateShapes.length];
+  private final double[] candidateScores = new double[candidateShapes.length];
+
+
+  // depth 1 places only the falling piece, deeper levels the preview pieces, and levels beyond
+  // the preview average over all seven types.
+  public AutoPlayer(PlacementHeuristic heuristic, int depth, boolean parallel) {
+      this.heuristic = heuristic;
+      this.depth = Math.max(1, depth);
+      this.pool = parallel ? ForkJoinPool.commonPool() : null;
+      this.scratch = newScratch(this.depth);
+      this.workerScratch = ThreadLocal.withInitial(() -> newScratch(this.depth));
+  }
+
+
+  public AutoPlayer() {
+      this(PlacementHeuristic.DEFAULT, DEFAULT_DEPTH, false);
+  }
+
+
+  // Searches for the best placement of the falling piece and plays it through target
+  // (rotations, shifts, then a hard drop). Returns false if there was nothing to play.
+  @Override
+  public boolean play(GameEngine engine, InputController.ActionTarget target) {
+      if (engine.isGameOver() || engine.getCurrentPieceShape() < 0) return false;
+      long start = System.nanoTime();
+      int best = search(engine);
+      searchNanos += System.nanoTime() - start;
+      moves++;
+      if (best < 0) return false;
+
+
+      // Same turns as collectCandidates simulated, so the kicks land the piece where it expects
+      GameEngine.Action turn = candidateTurns[best] < 0 ? GameEngine.Action.ROTATE_CCW : GameEngine.Action.ROTATE;
+      for (int i = Math.abs(candidateTurns[best]); i > 0; i--) {
+          if (!target.apply(turn)) break;
+      }
+      GameEngine.Action shift = candidateX[best] < engine.getCurrentPieceGridX()
+              ? GameEngine.Action.MOVE_LEFT : GameEngine.Action.MOVE_RIGHT;
+      while (engine.getCurrentPieceGridX() != candidateX[best]) {
+          if (!target.apply(shift)) break;
+      }
+      target.apply(GameEngine.Action.HARD_DROP);
+      return true;
+  }
+
+
+  public long getEvaluations() { return evaluations.sum(); }
+  public long getMoves() { return moves; }
+
+
+  public String summary() {
+      double seconds = searchNanos / 1e9;
+      return String.format("[bot] depth %d%s  %d moves  %d evaluations  %.0f evaluations/s  %.3f ms/move",
+              depth, pool != null ? " parallel" : "", moves, getEvaluations(),
+              seconds > 0 ? getEvaluations() / seconds : 0.0, moves > 0 ? searchNanos / 1e6 / moves : 0.0);
+  }
+
+
+  // Fills the candidate arrays and returns the index of the best one, or -1 if none is reachable.
+  private int search(GameEngine engine) {
+      GameBoard board = engine.getBoard();
+      int type = engine.getCurrentPieceType();
+      rotationSystem = engine.getRotationSystem();
+      int count = collectCandidates(board, rotationSystem, type, engine.getCurrentPieceRotation(),
+              engine.getCurrentPieceGridX(), engine.getCurrentPieceGridY(),
+              candidateShapes, candidateTurns, candidateX, candidateY);
+      if (count == 0) return -1;
+      pieces[0] = type;
+      knownPieces = Math.min(depth, 1 + engine.getPreviewLength());
+      for (int i = 1; i < knownPieces; i++) {
+          pieces[i] = engine.getPreviewType(i - 1);
+      }
+
+
+      if (pool != null && depth >= PARALLEL_MIN_DEPTH && count > 1) {
+          pool.invoke(new CandidateTask(board, pieces, 0, count));
+      } else {
+          for (int i = 0; i < count; i++) {
+              candidateScores[i] = scoreCandidate(board, pieces, i, scratch);
+          }
+      }
+      int best = 0;
+      for (int i = 1; i < count; i++) {
+          if (candidateScores[i] > candidateScores[best]) best = i;
+      }
+      return best;
+  }
+
+
+  private double scoreCandidate(GameBoard board, int[] pieces, int index, GameBoard[] boards) {
+      GameBoard next = boards[0];
+      next.copyFrom(board);
+      next.place(candidateShapes[index], candidateX[index], candidateY[index], pieces[0]);
+      int lines = next.clearLines(candidateY[index], PieceTable.height(candidateShapes[index]));
+      return searchLevel(next, pieces, 1, lines, boards);
+  }
+
+
+  // Best score reachable by placing pieces[level..depth) on board, from each piece's spawn.
+  private double searchLevel(GameBoard board, int[] pieces, int level, int lines, GameBoard[] boards) {
+      if (level == depth) {
+          evaluations.increment();
+          return heuristic.evaluate(board, lines);
+      }
+      if (level >= knownPieces) {
+          double total = 0;
+          for (int type = 1; type <= PieceTable.PIECE_TYPES; type++) {
+              total += bestPlacement(board, type, pieces, level, lines, boards);
+          }
+          return total / PieceTable.PIECE_TYPES;
+      }
+      return bestPlacement(board, pieces[level], pieces, level, lines, boards);
+  }
+
+
+  private double bestPlacement(GameBoard board, int type, int[] pieces, int level, int lines, GameBoard[] boards) {
+      int spawnX = PieceTable.spawnX(PieceTable.shapeIndex(type, 0));
+      int spawnY = rotationSystem.spawnY(PieceTable.shapeIndex(type, 0));
+      if (!board.canPlace(PieceTable.shapeIndex(type, 0), spawnX, spawnY)) return LOSS; // this piece would top out
+      GameBoard next = boards[level];
+      double best = LOSS;
+      int seenShapes = 0;
+      for (int path = 0; path < TURN_PATHS; path++) {
+          int turns = pathTurns(path);
+          int shape = PieceTable.shapeIndex(type, RotationSystem.turn(0, turns));
+          int shapeBit = 1 << (PieceTable.canonicalShape(shape) % PieceTable.MAX_ROTATIONS);
+          if ((seenShapes & shapeBit) != 0) continue; // same cells as an earlier state
+          int position = turnFrom(board, rotationSystem, type, 0, spawnX, spawnY, turns);
+          if (position < 0) continue;
+          seenShapes |= shapeBit;
+          int x = RotationSystem.x(position);
+          int y = RotationSystem.y(position);
+          for (int targetX = 0; targetX + PieceTable.width(shape) <= GameBoard.COLS; targetX++) {
+              if (!canShift(board, shape, x, y, targetX)) continue;
+              int landingY = board.landingY(shape, targetX, y);
+              next.copyFrom(board);
+              next.place(shape, targetX, landingY, type);
+              int cleared = next.clearLines(landingY, PieceTable.height(shape));
+              double score = searchLevel(next, pieces, level + 1, lines + cleared, boards);
+              if (score > best) best = score;
+          }
+      }
+      return best;
+  }
+
+
+  // Every (rotation, column) the falling piece can reach from its current position: up to three
+  // turns either way, then a slide. States with the same cells as an earlier one are skipped.
+  static int collectCandidates(GameBoard board, RotationSystem rotationSystem, int type, int rotation,
+                               int startX, int startY, int[] shapes, int[] turnCounts, int[] xs, int[] ys) {
+      int count = 0;
+      int seenShapes = 0;
+      for (int path = 0; path < TURN_PATHS; path++) {
+          int turns = pathTurns(path);
+          int shape = PieceTable.shapeIndex(type, RotationSystem.turn(rotation, turns));
+          int shapeBit = 1 << (PieceTable.canonicalShape(shape) % PieceTable.MAX_ROTATIONS);
+          if ((seenShapes & shapeBit) != 0) continue;
+          int position = turnFrom(board, rotationSystem, type, rotation, startX, startY, turns);
+          if (position < 0) continue;
+          seenShapes |= shapeBit;
+          int x = RotationSystem.x(position);
+          int y = RotationSystem.y(position);
+          for (int targetX = 0; targetX + PieceTable.width(shape) <= GameBoard.COLS; targetX++) {
+              if (!canShift(board, shape, x, y, targetX)) continue;
+              shapes[count] = shape;
+              turnCounts[count] = turns;
+              xs[count] = targetX;
+              ys[count] = board.landingY(shape, targetX, y);
+              count++;
+          }
+      }
+      return count;
+  }
+
+
+  // Signed turns of a TURN_PATHS entry: 0, 1, -1, 2, -2, 3, -3.
+  private static int pathTurns(int path) {
+      int turns = (path + 1) / 2;
+      return path % 2 == 1 ? turns : -turns;
+  }
+
+
+  // Where the piece ends after turning |turns| times (clockwise when positive) from (x, y),
+  // packed as by RotationSystem.rotate, or -1 if one of the turns fails.
+  private static int turnFrom(GameBoard board, RotationSystem rotationSystem, int type, int rotation,
+                              int x, int y, int turns) {
+      int direction = turns < 0 ? RotationSystem.COUNTER_CLOCKWISE : RotationSystem.CLOCKWISE;
+      for (int i = Math.abs(turns); i > 0; i--) {
+          int position = rotationSystem.rotate(board, type, rotation, x, y, direction);
+          if (position < 0) return -1;
+          rotation = RotationSystem.turn(rotation, direction);
+          x = RotationSystem.x(position);
+          y = RotationSystem.y(position);
+      }
+      return y << 8 | x;
+  }
+
+
+  // True if the shape can slide one column at a time from fromX to toX at row y.
+  private static boolean canShift(GameBoard board, int shape, int fromX, int y, int toX) {
+      int step = toX < fromX ? -1 : 1;
+      for (int x = fromX; x != toX; ) {
+          x += step;
+          if (!board.canPlace(shape, x, y)) return false;
+      }
+      return true;
+  }
+
+
+  private static GameBoard[] newScratch(int depth) {
+      GameBoard[] boards = new GameBoard[depth];
+      for (int i = 0; i < depth; i++) {
+          boards[i] = new GameBoard();
+      }
+      return boards;
+  }
+
+
+  // Scores first-level candidates [from, to), splitting until each task holds one.
+  private final class CandidateTask extends RecursiveAction {
+      private final GameBoard board;
+      private final int[] pieces;
+      private final int from;
+      private final int to;
+
+
+      CandidateTask(GameBoard board, int[] pieces, int from, int to) {
+          this.board = board;
+          this.pieces = pieces;
+          this.from = from;
+          this.to = to;
+      }
+
+
+      @Override
+      protected void compute() {
+          if (to - from == 1) {
+              // A leaf never forks, so a worker uses its boards for one leaf at a time
+              candidateScores[from] = scoreCandidate(board, pieces, from, workerScratch.get());
+              return;
+          }
+          int middle = (from + to) >>> 1;
+          invokeAll(new CandidateTask(board, pieces, from, middle), new CandidateTask(board, pieces, middle, to));
+      }
+  }
+}
@@ -0,0 +1,50 @@
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+
+// Converts decoded assets once into the screen's native pixel format at their final on-screen
+// size, so every later drawImage is an unscaled blit that Java2D can accelerate.
+final class CompatibleImages {
+  private CompatibleImages() { }
+
+
+  public static BufferedImage convert(Image source) {
+      if (source == null) return null;
+      return convert(source, source.getWidth(null), source.getHeight(null));
+  }
+
+
+  public static BufferedImage convert(Image source, int width, int height) {
+      if (source == null || width <= 0 || height <= 0) return null;
+      int transparency = source instanceof Transparency ? ((Transparency) source).getTransparency() : Transparency.TRANSLUCENT;
+      BufferedImage target = create(width, height, transparency);
+      Graphics2D g = target.createGraphics();
+      try {
+          if (width != source.getWidth(null) || height != source.getHeight(null)) {
+              // Paid once per asset and scale, so take the smooth path
+              g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+              g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+          }
+          g.drawImage(source, 0, 0, width, height, null);
+      } finally {
+          g.dispose();
+      }
+      return target;
+  }
+
+
+  public static BufferedImage create(int width, int height, int transparency) {
+      if (!GraphicsEnvironment.isHeadless()) {
+          GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                  .getDefaultScreenDevice().getDefaultConfiguration();
+          return gc.createCompatibleImage(width, height, transparency);
+      }
+      int type = transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE;
+      return new BufferedImage(width, height, type);
+  }
+}
@@ -0,0 +1,34 @@
+import java.awt.Graphics;
+import java.awt.Image;
+import javax.swing.JPanel;
+
+
+// Content of the credits window: just the credits image. It comes through the owning screen's
+// asset lease, so opening the credits again reuses the decoded image instead of reading the PNG.
+class CreditsPanel extends JPanel {
+  public static final String CREDITS_PATH = "./res/credits.png";
+
+
+  private final Image creditsImage;
+
+
+  public CreditsPanel(AssetRegistry.Lease assets) {
+      super();
+      this.setLayout(null);
+      this.setFocusable(true);
+      this.setBackground(java.awt.Color.DARK_GRAY);
+      this.creditsImage = assets.image(CREDITS_PATH, GameRendererPanel.SCREEN_SIZE, GameRendererPanel.SCREEN_SIZE);
+  }
+
+
+  @Override
+  protected void paintComponent(Graphics g) {
+      super.paintComponent(g);
+      if (creditsImage != null) {
+          g.drawImage(creditsImage, 0, 0, this);
+      } else {
+          g.setColor(java.awt.Color.GRAY);
+          g.fillRect(0, 0, getWidth(), getHeight());
+      }
+  }
+}
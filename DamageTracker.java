@@ -0,0 +1,56 @@
+// Collects what the engine changed since the last repaint: a bounding box of board cells
+// plus flags for the score and next-piece boxes. Headless; GameRendererPanel maps it to pixels.
+class DamageTracker {
+  private int minRow;
+  private int maxRow;
+  private int minCol;
+  private int maxCol;
+  private boolean scoreDamaged;
+  private boolean previewDamaged;
+  private boolean allDamaged;
+
+
+  public DamageTracker() {
+      reset();
+  }
+
+
+  public void reset() {
+      minRow = GameBoard.ROWS;
+      maxRow = -1;
+      minCol = GameBoard.COLS;
+      maxCol = -1;
+      scoreDamaged = false;
+      previewDamaged = false;
+      allDamaged = false;
+  }
+
+
+  // Adds the cell rectangle [row, row + rows) x [col, col + cols), clipped to the board.
+  public void addCells(int row, int col, int rows, int cols) {
+      int top = Math.max(row, 0);
+      int bottom = Math.min(row + rows, GameBoard.ROWS) - 1;
+      int left = Math.max(col, 0);
+      int right = Math.min(col + cols, GameBoard.COLS) - 1;
+      if (top > bottom || left > right) return;
+      if (top < minRow) minRow = top;
+      if (bottom > maxRow) maxRow = bottom;
+      if (left < minCol) minCol = left;
+      if (right > maxCol) maxCol = right;
+  }
+
+
+  public void markScore() { scoreDamaged = true; }
+  public void markPreview() { previewDamaged = true; }
+  public void markAll() { allDamaged = true; }
+
+
+  public boolean hasCells() { return maxRow >= 0; }
+  public int getMinRow() { return minRow; }
+  public int getMaxRow() { return maxRow; }
+  public int getMinCol() { return minCol; }
+  public int getMaxCol() { return maxCol; }
+  public boolean isScoreDamaged() { return scoreDamaged; }
+  public boolean isPreviewDamaged() { return previewDamaged; }
+  public boolean isAllDamaged() { return allDamaged; }
+}
@@ -0,0 +1,187 @@
+import java.util.Arrays;
+
+
+// Landed-block storage: one bitmask per row for occupancy (bit c = column c),
+// plus a flat row-major color array the renderer reads directly. The skyline (topmost
+// filled row per column) is kept up to date so drop distances need no row scans.
+class GameBoard {
+  public static final int ROWS = 20;
+  public static final int COLS = 10;
+  public static final int FULL_ROW = (1 << COLS) - 1;
+
+
+  private final int[] rowBits = new int[ROWS];
+  private final byte[] cellColors = new byte[ROWS * COLS];
+  // Row index of the highest filled cell in each column, ROWS when the column is empty.
+  private final int[] columnTops = new int[COLS];
+  // Bumped on every mutation so caches built from the board (e.g. the renderer's stack layer) can tell it changed.
+  private int version;
+  private int clearedRows;
+
+
+  public GameBoard() {
+      Arrays.fill(columnTops, ROWS);
+  }
+
+
+  public void clear() {
+      Arrays.fill(rowBits, 0);
+      Arrays.fill(cellColors, (byte) 0);
+      Arrays.fill(columnTops, ROWS);
+      clearedRows = 0;
+      version++;
+  }
+
+
+  public void copyFrom(GameBoard other) {
+      System.arraycopy(other.rowBits, 0, rowBits, 0, ROWS);
+      System.arraycopy(other.cellColors, 0, cellColors, 0, ROWS * COLS);
+      System.arraycopy(other.columnTops, 0, columnTops, 0, COLS);
+      version++;
+  }
+
+
+  public void setCell(int row, int col, int color) {
+      if (color == 0) {
+          rowBits[row] &= ~(1 << col);
+          if (columnTops[col] == row) recomputeColumnTops();
+      } else {
+          rowBits[row] |= 1 << col;
+          if (row < columnTops[col]) columnTops[col] = row;
+      }
+      cellColors[row * COLS + col] = (byte) color;
+      version++;
+  }
+
+
+  public int getVersion() { return version; }
+  public int getRowBits(int row) { return rowBits[row]; }
+  public byte[] getCellColors() { return cellColors; }
+  public int getColor(int row, int col) { return cellColors[row * COLS + col]; }
+  public boolean isOccupied(int row, int col) { return (rowBits[row] & (1 << col)) != 0; }
+  public int getColumnTop(int col) { return columnTops[col]; }
+  public int getColumnHeight(int col) { return ROWS - columnTops[col]; }
+
+
+  // Shapes are PieceTable indices; (x, y) is the board cell of the shape's top-left corner.
+  public boolean canPlace(int shape, int x, int y) {
+      int height = PieceTable.height(shape);
+      if (x < 0 || x + PieceTable.width(shape) > COLS || y < 0 || y + height > ROWS) return false;
+      for (int r = 0; r < height; r++) {
+          if (((PieceTable.rowMask(shape, r) << x) & rowBits[y + r]) != 0) return false;
+      }
+      return true;
+  }
+
+
+  public void place(int shape, int x, int y, int color) {
+      int height = PieceTable.height(shape);
+      version++;
+      for (int r = 0; r < height; r++) {
+          int row = y + r;
+          if (row < 0 || row >= ROWS) continue;
+          int shifted = (PieceTable.rowMask(shape, r) << x) & FULL_ROW;
+          rowBits[row] |= shifted;
+          for (int bits = shifted; bits != 0; bits &= bits - 1) {
+              int col = Integer.numberOfTrailingZeros(bits);
+              cellColors[row * COLS + col] = (byte) color;
+              if (row < columnTops[col]) columnTops[col] = row;
+          }
+      }
+  }
+
+
+  // Removes every full row and drops the rows above it; returns the number of rows removed.
+  public int clearLines() {
+      return clearLines(0, ROWS);
+  }
+
+
+  // Like clearLines(), but only rows [firstRow, firstRow + rowCount) are checked: after a landing
+  // only the rows the piece filled can be full. The surviving rows are compacted in one
+  // bottom-up pass that moves each row at most once and stops at the top of the stack.
+  public int clearLines(int firstRow, int rowCount) {
+      int from = Math.max(firstRow, 0);
+      int to = Math.min(firstRow + rowCount, ROWS);
+      int fullRows = 0;
+      for (int r = from; r < to; r++) {
+          if (rowBits[r] == FULL_ROW) fullRows |= 1 << r;
+      }
+      clearedRows = fullRows;
+      if (fullRows == 0) return 0;
+
+
+      int stackTop = ROWS;
+      for (int c = 0; c < COLS; c++) {
+          if (columnTops[c] < stackTop) stackTop = columnTops[c];
+      }
+      // Each run of surviving rows between full rows moves down with a single copy
+      int dst = 31 - Integer.numberOfLeadingZeros(fullRows); // lowest full row
+      int src = dst - 1;
+      while (src >= stackTop) {
+          if ((fullRows & (1 << src)) != 0) {
+              src--;
+              continue;
+          }
+          int runBottom = src;
+          while (src >= stackTop && (fullRows & (1 << src)) == 0) {
+              src--;
+          }
+          int length = runBottom - src;
+          System.arraycopy(rowBits, src + 1, rowBits, dst - length + 1, length);
+          System.arraycopy(cellColors, (src + 1) * COLS, cellColors, (dst - length + 1) * COLS, length * COLS);
+          dst -= length;
+      }
+      // Rows [stackTop, dst] have been moved down or cleared; everything above was already empty
+      for (int r = stackTop; r <= dst; r++) {
+          rowBits[r] = 0;
+      }
+      if (dst >= stackTop) Arrays.fill(cellColors, stackTop * COLS, (dst + 1) * COLS, (byte) 0);
+      recomputeColumnTops();
+      version++;
+      return Integer.bitCount(fullRows);
+  }
+
+
+  // Bit r is set if row r was removed by the last clearLines call (row indices from before the
+  // rows above it dropped), for line-clear animation and scoring.
+  public int getClearedRows() { return clearedRows; }
+
+
+  // Row the shape comes to rest at when dropped straight down from (x, y), which must be a
+  // legal position. Uses the skyline when every column of the piece is above it, and only
+  // falls back to stepping canPlace when the piece has been tucked under an overhang.
+  public int landingY(int shape, int x, int y) {
+      int distance = ROWS;
+      int width = PieceTable.width(shape);
+      for (int c = 0; c < width; c++) {
+          int bottom = PieceTable.bottom(shape, c);
+          if (bottom < 0) continue;
+          int gap = columnTops[x + c] - 1 - (y + bottom);
+          if (gap < 0) return scanLandingY(shape, x, y);
+          if (gap < distance) distance = gap;
+      }
+      return y + distance;
+  }
+
+
+  private int scanLandingY(int shape, int x, int y) {
+      while (canPlace(shape, x, y + 1)) {
+          y++;
+      }
+      return y;
+  }
+
+
+  private void recomputeColumnTops() {
+      Arrays.fill(columnTops, ROWS);
+      int remaining = FULL_ROW;
+      for (int r = 0; r < ROWS && remaining != 0; r++) {
+          int firstHits = rowBits[r] & remaining;
+          for (int bits = firstHits; bits != 0; bits &= bits - 1) {
+              columnTops[Integer.numberOfTrailingZeros(bits)] = r;
+          }
+          remaining &= ~firstHits;
+      }
+  }
+}
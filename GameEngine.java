@@ -0,0 +1,292 @@
+// Headless game rules: spawn, gravity, movement, rotation, landing, line clears and scoring.
+// Has no AWT/Swing dependency; ImagePanel drives it from key events and its gravity Timer,
+// while simulations can call step()/tick() as fast as they like.
+class GameEngine {
+  // ROTATE turns clockwise. New actions go last: replays store the ordinals.
+  public enum Action { MOVE_LEFT, MOVE_RIGHT, SOFT_DROP, ROTATE, HARD_DROP, ROTATE_CCW }
+
+
+  public static final int LANDING_SCORE = 5;
+  public static final int LINE_SCORE = 100;
+  public static final int MAX_PREVIEW = 5;
+  // Gravity delay in ms of the easy, medium and hard difficulties
+  public static final int[] DIFFICULTY_DELAYS = { 1000, 300, 100 };
+  public static final String[] DIFFICULTY_NAMES = { "easy", "medium", "hard" };
+
+
+  private final GameBoard board = new GameBoard();
+  private final DamageTracker damage = new DamageTracker();
+  private PieceGenerator generator = PieceGenerator.named(PieceGenerator.DEFAULT);
+  private RotationSystem rotationSystem = RotationSystem.SRS;
+  private long seed;
+
+
+  private int currentPieceType;
+  private int currentPieceRotation;
+  private int currentPieceGridX;
+  private int currentPieceGridY;
+  private int currentPieceShape = -1;
+  // Landing row of the current piece; refreshed only on spawn, horizontal moves and rotation.
+  private int ghostY;
+
+
+  // Upcoming piece types, a ring of previewLength slots starting at queueHead. Each spawn takes
+  // the head and refills its slot from the generator, so the queue never allocates.
+  private final int[] queue = new int[MAX_PREVIEW];
+  private int queueHead;
+  private int previewLength = 1;
+  private int nextPreviewLength = 1;
+
+
+  private int score = 0;
+  private boolean gameOver = false;
+  // Pieces spawned this game, including the falling one.
+  private int pieceCount = 0;
+
+
+  public GameEngine() {
+      this(System.nanoTime());
+  }
+
+
+  public GameEngine(long seed) {
+      this.seed = seed;
+      this.generator.reset(seed);
+  }
+
+
+  public void newGame(long seed) {
+      this.seed = seed;
+      generator.reset(seed);
+      previewLength = nextPreviewLength;
+      queueHead = 0;
+      for (int i = 0; i < previewLength; i++) {
+          queue[i] = generator.next();
+      }
+      board.clear();
+      score = 0;
+      gameOver = false;
+      pieceCount = 0;
+      currentPieceShape = -1;
+      spawnNewPiece();
+      damage.markAll();
+  }
+
+
+  // Both take effect from the next newGame. The preview length only changes how many pieces are
+  // visible, never which pieces come, so a replay plays back the same with any preview.
+  public void setGenerator(PieceGenerator generator) {
+      this.generator = generator;
+  }
+
+
+  public void setRotationSystem(RotationSystem rotationSystem) {
+      this.rotationSystem = rotationSystem;
+  }
+
+
+  public void setPreviewLength(int previewLength) {
+      this.nextPreviewLength = Math.max(1, Math.min(MAX_PREVIEW, previewLength));
+  }
+
+
+  // Applies one player action; returns true if the visible state changed.
+  public boolean step(Action action) {
+      if (gameOver || currentPieceShape < 0) return false;
+      switch (action) {
+          case MOVE_LEFT:
+              return tryMove(currentPieceGridX - 1, currentPieceGridY);
+          case MOVE_RIGHT:
+              return tryMove(currentPieceGridX + 1, currentPieceGridY);
+          case SOFT_DROP:
+              movePieceDown();
+              return true;
+          case ROTATE:
+              return rotate(RotationSystem.CLOCKWISE);
+          case ROTATE_CCW:
+              return rotate(RotationSystem.COUNTER_CLOCKWISE);
+          case HARD_DROP:
+              hardDrop();
+              return true;
+          default:
+              return false;
+      }
+  }
+
+
+  // One gravity step: the piece falls a row, or lands and the next piece spawns.
+  public void tick() {
+      if (gameOver || currentPieceShape < 0) return;
+      movePieceDown();
+  }
+
+
+  public boolean canMove(int targetX, int targetY, int pieceShape) {
+      if (pieceShape < 0) return false;
+      return board.canPlace(pieceShape, targetX, targetY);
+  }
+
+
+  public void spawnNewPiece() {
+      currentPieceType = queue[queueHead];
+      currentPieceShape = PieceTable.shapeIndex(currentPieceType, 0);
+      currentPieceRotation = 0;
+      currentPieceGridX = PieceTable.spawnX(currentPieceShape);
+      currentPieceGridY = rotationSystem.spawnY(currentPieceShape);
+
+
+      if (!canMove(currentPieceGridX, currentPieceGridY, currentPieceShape)) {
+          gameOver = true;
+          damage.markAll();
+          return;
+      }
+      pieceCount++;
+      updateGhost();
+      damagePiece();
+      queue[queueHead] = generator.next();
+      queueHead = (queueHead + 1) % previewLength;
+      damage.markPreview();
+  }
+
+
+  public void landPiece() {
+      if (currentPieceShape < 0) return;
+      damagePiece();
+      board.place(currentPieceShape, currentPieceGridX, currentPieceGridY, currentPieceType);
+      score += LANDING_SCORE;
+      damage.markScore();
+      if (clearLines(currentPieceGridY, PieceTable.height(currentPieceShape)) > 0) {
+          // Only rows the piece filled can clear; everything above the lowest one shifts down.
+          int lowestCleared = 31 - Integer.numberOfLeadingZeros(board.getClearedRows());
+          damage.addCells(0, 0, lowestCleared + 1, GameBoard.COLS);
+      }
+  }
+
+
+  public int clearLines() {
+      return clearLines(0, GameBoard.ROWS);
+  }
+
+
+  private int clearLines(int firstRow, int rowCount) {
+      int cleared = board.clearLines(firstRow, rowCount);
+      if (cleared > 0) {
+          score += LINE_SCORE * cleared;
+          damage.markScore();
+      }
+      return cleared;
+  }
+
+
+  public void hardDrop() {
+      damagePiece();
+      currentPieceGridY = ghostY;
+      landPiece();
+      spawnNewPiece();
+  }
+
+
+  private void movePieceDown() {
+      if (canMove(currentPieceGridX, currentPieceGridY + 1, currentPieceShape)) {
+          // The ghost stays put, so only the rows the piece leaves and enters change
+          damagePieceCells();
+          currentPieceGridY++;
+          damagePieceCells();
+      } else {
+          landPiece();
+          spawnNewPiece();
+      }
+  }
+
+
+  private boolean tryMove(int targetX, int targetY) {
+      if (!canMove(targetX, targetY, currentPieceShape)) return false;
+      damagePiece();
+      currentPieceGridX = targetX;
+      currentPieceGridY = targetY;
+      updateGhost();
+      damagePiece();
+      return true;
+  }
+
+
+  private boolean rotate(int direction) {
+      int position = rotationSystem.rotate(board, currentPieceType, currentPieceRotation,
+              currentPieceGridX, currentPieceGridY, direction);
+      if (position < 0) return false;
+      damagePiece();
+      currentPieceRotation = RotationSystem.turn(currentPieceRotation, direction);
+      currentPieceShape = PieceTable.shapeIndex(currentPieceType, currentPieceRotation);
+      currentPieceGridX = RotationSystem.x(position);
+      currentPieceGridY = RotationSystem.y(position);
+      updateGhost();
+      damagePiece();
+      return true;
+  }
+
+
+  // Marks the cells under the current piece and its ghost for repaint.
+  private void damagePiece() {
+      damagePieceCells();
+      damage.addCells(ghostY, currentPieceGridX, PieceTable.height(currentPieceShape), PieceTable.width(currentPieceShape));
+  }
+
+
+  // Marks only the cells under the current piece, for moves that leave the ghost where it is.
+  private void damagePieceCells() {
+      damage.addCells(currentPieceGridY, currentPieceGridX, PieceTable.height(currentPieceShape),
+              PieceTable.width(currentPieceShape));
+  }
+
+
+  // Falling straight down keeps the landing row, so gravity and soft drop never call this.
+  private void updateGhost() {
+      ghostY = getLandingY();
+  }
+
+
+  // Row the current piece would land on if hard dropped now.
+  public int getLandingY() {
+      return board.landingY(currentPieceShape, currentPieceGridX, currentPieceGridY);
+  }
+
+
+  // FNV-1a over the board, the falling and next piece, the score and the game-over flag;
+  // replays compare it to check that playback reproduced the recorded game exactly. Shapes are
+  // hashed canonically, as they were when S, Z, I and O had fewer rotation states.
+  public long stateHash() {
+      long hash = 0xcbf29ce484222325L;
+      for (byte cell : board.getCellColors()) {
+          hash = (hash ^ (cell & 0xFF)) * 0x100000001b3L;
+      }
+      int shape = currentPieceShape >= 0 ? PieceTable.canonicalShape(currentPieceShape) : currentPieceShape;
+      int[] fields = { shape, currentPieceGridX, currentPieceGridY, getNextPieceShape(), score, gameOver ? 1 : 0 };
+      for (int field : fields) {
+          hash = (hash ^ field) * 0x100000001b3L;
+      }
+      return hash;
+  }
+
+
+  public GameBoard getBoard() { return board; }
+  public DamageTracker getDamage() { return damage; }
+  // Rows removed by the last landing as a bitmask, bit r for row r; 0 if it cleared nothing.
+  public int getClearedRows() { return board.getClearedRows(); }
+  public long getSeed() { return seed; }
+  public int getCurrentPieceType() { return currentPieceType; }
+  public int getCurrentPieceRotation() { return currentPieceRotation; }
+  public int getCurrentPieceShape() { return currentPieceShape; }
+  public int getCurrentPieceGridX() { return currentPieceGridX; }
+  public int getCurrentPieceGridY() { return currentPieceGridY; }
+  public int getGhostY() { return ghostY; }
+  public PieceGenerator getGenerator() { return generator; }
+  public RotationSystem getRotationSystem() { return rotationSystem; }
+  public int getPreviewLength() { return previewLength; }
+  // Type of the piece index places after the falling one (0 = next), index < getPreviewLength().
+  public int getPreviewType(int index) { return queue[(queueHead + index) % previewLength]; }
+  public int getNextPieceType() { return queue[queueHead]; }
+  public int getNextPieceShape() { return queue[queueHead] > 0 ? PieceTable.shapeIndex(queue[queueHead], 0) : -1; }
+  public int getScore() { return score; }
+  public int getPieceCount() { return pieceCount; }
+  public boolean isGameOver() { return gameOver; }
+}
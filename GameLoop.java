@@ -0,0 +1,197 @@
+import java.awt.Graphics2D;
+import java.awt.GraphicsDevice;
+import java.awt.Point;
+import java.awt.Toolkit;
+import java.awt.Window;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.HierarchyBoundsAdapter;
+import java.awt.event.HierarchyEvent;
+import java.awt.image.BufferStrategy;
+import javax.swing.SwingUtilities;
+
+
+// Optional replacement for the Swing Timers: a dedicated thread advances the game in fixed
+// logic steps and actively renders every frame into the window's BufferStrategy, paced to a
+// frame cap. Logic and rendering hold the engine's lock, which ImagePanel's key handling also
+// takes, so EDT input never interleaves with a step or a frame.
+class GameLoop implements Runnable {
+  public static final int LOGIC_HZ = 60;
+  public static final long STEP_NANOS = 1_000_000_000L / LOGIC_HZ;
+  // After a long stall, drop the backlog instead of replaying it all at once.
+  private static final int MAX_STEPS_PER_FRAME = 5;
+  private static final long REPORT_INTERVAL_NANOS = 5_000_000_000L;
+  private static final long SPIN_THRESHOLD_NANOS = 2_000_000L;
+
+
+  private final ImagePanel imagePanel;
+  private final GameRendererPanel panel;
+  private final Window window;
+  private final long frameNanos;
+  private final JitterStats tickStats = JitterStats.scheduled("ticks");
+  private final JitterStats frameStats;
+  private BufferStrategy strategy;
+  // The panel's top-left in window coordinates, recomputed on the EDT whenever it may move
+  private volatile Point panelOrigin = new Point();
+  private Thread thread;
+  private volatile boolean running;
+
+
+  // fpsCap <= 0 renders as fast as possible.
+  public GameLoop(ImagePanel imagePanel, Window window, int fpsCap) {
+      this.imagePanel = imagePanel;
+      this.panel = imagePanel.getDrawingPanel();
+      this.window = window;
+      this.frameNanos = fpsCap > 0 ? 1_000_000_000L / fpsCap : 0;
+      this.frameStats = new JitterStats("frames", frameNanos);
+  }
+
+
+  // Display refresh rate for vsync-style pacing, or 60 when the device does not report one.
+  public static int refreshRate(Window window) {
+      GraphicsDevice device = window.getGraphicsConfiguration().getDevice();
+      int rate = device.getDisplayMode().getRefreshRate();
+      return rate > 0 ? rate : 60;
+  }
+
+
+  // Must be called once the window is displayable, i.e. after setVisible(true).
+  public void start() {
+      if (running) return;
+      window.setIgnoreRepaint(true);
+      panel.setActiveRendering(true);
+      window.createBufferStrategy(2);
+      strategy = window.getBufferStrategy();
+      updatePanelOrigin();
+      panel.addComponentListener(new ComponentAdapter() {
+          @Override
+          public void componentMoved(ComponentEvent e) { updatePanelOrigin(); }
+
+
+          @Override
+          public void componentResized(ComponentEvent e) { updatePanelOrigin(); }
+      });
+      panel.addHierarchyBoundsListener(new HierarchyBoundsAdapter() {
+          @Override
+          public void ancestorMoved(HierarchyEvent e) { updatePanelOrigin(); }
+
+
+          @Override
+          public void ancestorResized(HierarchyEvent e) { updatePanelOrigin(); }
+      });
+      imagePanel.setLoopDriven(true);
+      running = true;
+      thread = new Thread(this, "game-loop");
+      thread.setDaemon(true);
+      thread.start();
+  }
+
+
+  public void stop() {
+      running = false;
+      if (thread != null && thread != Thread.currentThread()) {
+          try {
+              thread.join(1000);
+          } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+          }
+      }
+      report();
+  }
+
+
+  @Override
+  public void run() {
+      long previous = System.nanoTime();
+      long accumulator = 0;
+      long nextFrame = previous;
+      long nextReport = previous + REPORT_INTERVAL_NANOS;
+      while (running) {
+          long now = System.nanoTime();
+          accumulator += now - previous;
+          previous = now;
+
+
+          int steps = 0;
+          synchronized (imagePanel.getEngine()) {
+              while (accumulator >= STEP_NANOS && steps < MAX_STEPS_PER_FRAME) {
+                  // A step falls due when the accumulator reaches STEP_NANOS; record how late it
+                  // runs, so catch-up bursts show up as lateness rather than as short intervals
+                  tickStats.mark(previous - accumulator + STEP_NANOS, System.nanoTime());
+                  imagePanel.advanceLoop(STEP_NANOS);
+                  accumulator -= STEP_NANOS;
+                  steps++;
+              }
+          }
+          if (accumulator >= STEP_NANOS) accumulator = 0;
+
+
+          render();
+          frameStats.mark(System.nanoTime());
+
+
+          if (frameNanos > 0) {
+              nextFrame += frameNanos;
+              long after = System.nanoTime();
+              if (nextFrame < after - frameNanos) nextFrame = after; // fell behind; resync
+              sleepUntil(nextFrame);
+          } else {
+              Thread.yield();
+          }
+          if (System.nanoTime() >= nextReport) {
+              report();
+              nextReport += REPORT_INTERVAL_NANOS;
+          }
+      }
+  }
+
+
+  private void render() {
+      do {
+          do {
+              Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+              try {
+                  Point origin = panelOrigin;
+                  g.translate(origin.x, origin.y);
+                  g.clipRect(0, 0, panel.getWidth(), panel.getHeight());
+                  synchronized (imagePanel.getEngine()) {
+                      panel.render(g);
+                  }
+              } finally {
+                  g.dispose();
+              }
+          } while (strategy.contentsRestored());
+          strategy.show();
+      } while (strategy.contentsLost());
+      Toolkit.getDefaultToolkit().sync();
+  }
+
+
+  private void updatePanelOrigin() {
+      panelOrigin = SwingUtilities.convertPoint(panel, 0, 0, window);
+  }
+
+
+  // Sleeps coarsely, then spins the last stretch since Thread.sleep overshoots by a millisecond or more.
+  private static void sleepUntil(long deadline) {
+      long remaining;
+      while ((remaining = deadline - System.nanoTime()) > SPIN_THRESHOLD_NANOS) {
+          try {
+              Thread.sleep((remaining - SPIN_THRESHOLD_NANOS) / 1_000_000L);
+          } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              return;
+          }
+      }
+      while (deadline - System.nanoTime() > 0) {
+          Thread.onSpinWait();
+      }
+  }
+
+
+  private void report() {
+      System.out.println("[loop] " + tickStats.summary() + " | " + frameStats.summary());
+      tickStats.reset();
+      frameStats.reset();
+  }
+}
@@ -1,27 +1,63 @@
+import java.awt.AlphaComposite;
 import java.awt.Font;
-import java.awt.FontFormatException;
-import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.GraphicsEnvironment;
 import java.awt.Image;
-import java.io.File;
-import java.io.IOException;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.IdentityHashMap;
 import java.util.List;
-import javax.imageio.ImageIO; // Import for ImageIO
+import java.util.Map;
 import javax.swing.JPanel;
 
 
 
 
+// Lays every screen out in a SCREEN_SIZE x SCREEN_SIZE design space that ScreenLayout scales to
+// the panel's device pixels. Sprites, glyph sheets and the stack layer are rasterized once per
+// scale at their on-screen size, so a frame is the same set of unscaled blits at any resolution.
 class GameRendererPanel extends JPanel {
   private ImagePanel imagePanel;
+  public static final int SCREEN_SIZE = 720;
+  public static final String FONT_PATH = "res/fonts/PressStart2P-Regular.ttf";
+  public static final String END_SCREEN_PATH = "./res/bg/endscreen.png";
   public static final int BLOCK_SIZE = 33;
-  public static final int GAME_AREA_X_OFFSET = ((720 - (ImagePanel.GRID_COLS * BLOCK_SIZE)) / 2) - 178;
-  public static final int GAME_AREA_Y_OFFSET = ((720 - (ImagePanel.GRID_ROWS * BLOCK_SIZE)) / 2) - 14;
+  public static final int GAME_AREA_X_OFFSET = ((SCREEN_SIZE - (ImagePanel.GRID_COLS * BLOCK_SIZE)) / 2) - 178;
+  public static final int GAME_AREA_Y_OFFSET = ((SCREEN_SIZE - (ImagePanel.GRID_ROWS * BLOCK_SIZE)) / 2) - 14;
+  // Screen boxes around the score text and the next-piece preview, repainted when they change.
+  private static final java.awt.Rectangle SCORE_BOX = new java.awt.Rectangle(360, 368, 360, 100);
+  private static final java.awt.Rectangle PREVIEW_BOX = new java.awt.Rectangle(460, 95, 140, 140);
+  // Row under the preview box holding queued pieces after the next one, four slots wide.
+  private static final java.awt.Rectangle QUEUE_BOX = new java.awt.Rectangle(390, 240, 312, 40);
+  private static final int SMALL_BLOCK_SIZE = BLOCK_SIZE / 2;
+  // Resting positions of the main menu's glow sprites; each bobs vertically around its y.
+  static final int[] BOBBING_X = {-100, -60, 430, -250, 300, 550, -140};
+  static final int[] BOBBING_Y = {225, -160, 0, 0, 500, 300, 460};
+  private static final AlphaComposite GHOST_COMPOSITE = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.3f);
   private Font scoreFont;
+  // Glyph sheets for the current layout's scale
+  private GlyphAtlas scoreLabelGlyphs;
+  private GlyphAtlas scoreValueGlyphs;
+  private GlyphAtlas gameOverGlyphs;
+  private static final String SCORE_LABEL_TEXT = "SCORE";
+  private static final String GAME_OVER_TEXT = "GAME OVER";
   // <<< NEW FIELD FOR END SCREEN IMAGE >>>
   private Image endScreenImage;
+  private boolean gameScreenAssetsLoaded = false;
+  private Image[] smallBlockImages;
+  private Image[] smallBlockSources;
+  // Per-scale caches; dropped and rebuilt on first use whenever the layout's scale changes
+  private volatile ScreenLayout layout;
+  private final Map<Image, BufferedImage> sprites = new IdentityHashMap<>();
+  private BufferedImage stackLayer;
+  private Image stackLayerBackground;
+  private int stackLayerVersion;
+  private boolean stackLayerValid;
+  private volatile boolean activeRendering;
+  // Union of the glow sprites that moved this animation tick, repainted as one area
+  private final Rectangle bobbingDamage = new Rectangle();
+  private final PerfHud perf = new PerfHud();
 
 
 
@@ -32,36 +68,179 @@ class GameRendererPanel extends JPanel {
       this.setLayout(null);
       this.setFocusable(true);
       this.setBackground(java.awt.Color.DARK_GRAY);
+  }
 
 
+  // The font and end screen are decoded in the background by the AssetLoader; they are only
+  // collected the first time a game screen paints, so the main menu never waits for them.
+  private void ensureGameScreenAssets() {
+      if (gameScreenAssetsLoaded) return;
+      Font loadedFont = imagePanel.getAssets().font(FONT_PATH);
+      scoreFont = loadedFont != null ? loadedFont.deriveFont(28f) : new Font("SansSerif", Font.BOLD, 20);
+      // Native size: the sprite cache scales it straight to the layout, sharp at any resolution
+      endScreenImage = imagePanel.getAssets().image(END_SCREEN_PATH);
+      gameScreenAssetsLoaded = true;
+  }
 
 
-      try {
-          scoreFont = Font.createFont(Font.TRUETYPE_FONT, new File("res/fonts/PressStart2P-Regular.ttf")).deriveFont(28f);
-          GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-          ge.registerFont(scoreFont);
-      } catch (FontFormatException | IOException e) {
-          e.printStackTrace();
-          scoreFont = new Font("SansSerif", Font.BOLD, 20);
+
+
+  // HUD text is blitted from glyph sheets rendered once per font size and layout scale.
+  private void ensureGlyphs(ScreenLayout layout) {
+      if (scoreValueGlyphs != null || scoreFont == null) return;
+      scoreLabelGlyphs = new GlyphAtlas(scoreFont.deriveFont(layout.size(24f)), java.awt.Color.WHITE);
+      scoreValueGlyphs = new GlyphAtlas(scoreFont.deriveFont(layout.size(50f)), java.awt.Color.WHITE);
+      gameOverGlyphs = new GlyphAtlas(scoreFont.deriveFont(layout.size(60f)), java.awt.Color.RED);
+  }
+
+
+
+
+  // The layout for the panel's current size and the given device scale. A new scale drops every
+  // cached rasterization; they are rebuilt at the new size the first time they are drawn.
+  private ScreenLayout layoutFor(double deviceScale) {
+      ScreenLayout current = layout;
+      if (current != null && current.matches(getWidth(), getHeight(), deviceScale)) return current;
+      ScreenLayout next = new ScreenLayout(getWidth(), getHeight(), deviceScale);
+      if (current == null || current.getScale() != next.getScale()) {
+          sprites.clear();
+          smallBlockSources = null;
+          scoreLabelGlyphs = null;
+          scoreValueGlyphs = null;
+          gameOverGlyphs = null;
+          stackLayerValid = false;
       }
-      // <<< LOAD END SCREEN IMAGE >>>
-      loadEndScreenImage();
+      layout = next;
+      return next;
   }
 
 
-  // <<< NEW METHOD TO LOAD END SCREEN IMAGE >>>
-  private void loadEndScreenImage() {
-      try {
-          endScreenImage = ImageIO.read(new File("./res/bg/endscreen.png"));
-      } catch (IOException e) {
-          System.err.println("Error loading end screen image: ./res/bg/endscreen.png - " + e.getMessage());
-          endScreenImage = null; // Set to null if loading fails
+
+
+  // source rasterized at width x height device pixels, once per layout scale.
+  private Image sprite(Image source, int width, int height) {
+      BufferedImage scaled = sprites.get(source);
+      if (scaled == null || scaled.getWidth() != width || scaled.getHeight() != height) {
+          scaled = CompatibleImages.convert(source, width, height);
+          if (scaled == null) return source;
+          sprites.put(source, scaled);
+      }
+      return scaled;
+  }
+
+
+
+
+  // source at its native pixel size taken as design units, e.g. overlays and glow sprites.
+  private Image sprite(Image source, ScreenLayout layout) {
+      return sprite(source, layout.size(source.getWidth(null)), layout.size(source.getHeight(null)));
+  }
+
+
+
+
+  // Repaints only the screen areas covered by the engine's damage since the last repaint.
+  public void repaintDamage(DamageTracker damage) {
+      ScreenLayout layout = this.layout;
+      if (damage.isAllDamaged() || layout == null) {
+          repaint();
+          return;
+      }
+      if (damage.hasCells()) {
+          repaint(layout.toComponent(GAME_AREA_X_OFFSET + damage.getMinCol() * BLOCK_SIZE,
+                  GAME_AREA_Y_OFFSET + damage.getMinRow() * BLOCK_SIZE,
+                  (damage.getMaxCol() - damage.getMinCol() + 1) * BLOCK_SIZE,
+                  (damage.getMaxRow() - damage.getMinRow() + 1) * BLOCK_SIZE));
+      }
+      if (damage.isScoreDamaged()) {
+          repaint(layout.toComponent(SCORE_BOX));
+      }
+      if (damage.isPreviewDamaged()) {
+          repaint(layout.toComponent(PREVIEW_BOX));
+          if (imagePanel.getEngine().getPreviewLength() > 1) repaint(layout.toComponent(QUEUE_BOX));
+      }
+  }
+
+
+
+
+  // Adds one glow sprite's old and new position to this tick's repaint area; see
+  // repaintBobbingSprites.
+  public void damageBobbingSprite(int index, int previousOffset, int offset) {
+      if (activeRendering || index >= BOBBING_X.length) return;
+      List<Image> bobbingImages = imagePanel.getBobbingImages();
+      Image sprite = index < bobbingImages.size() ? bobbingImages.get(index) : null;
+      ScreenLayout layout = this.layout;
+      if (sprite == null || layout == null) return;
+      int designTop = BOBBING_Y[index] + Math.min(previousOffset, offset);
+      Rectangle area = layout.toComponent(BOBBING_X[index], designTop, sprite.getWidth(this),
+              BOBBING_Y[index] + Math.max(previousOffset, offset) + sprite.getHeight(this) - designTop);
+      int left = Math.max(0, area.x);
+      int top = Math.max(0, area.y);
+      int right = Math.min(getWidth(), area.x + area.width);
+      int bottom = Math.min(getHeight(), area.y + area.height);
+      if (right <= left || bottom <= top) return;
+      if (bobbingDamage.isEmpty()) {
+          bobbingDamage.setBounds(left, top, right - left, bottom - top);
+      } else {
+          bobbingDamage.add(left, top);
+          bobbingDamage.add(right, bottom);
+      }
+  }
+
+
+
+
+  // One repaint per animation tick for every sprite that moved, rather than a paint per sprite.
+  public void repaintBobbingSprites() {
+      if (bobbingDamage.isEmpty()) return;
+      repaint(bobbingDamage);
+      bobbingDamage.setBounds(0, 0, 0, 0);
+  }
+
+
+
+
+  // Draws piece type in its spawn rotation centred on (centerX, centerY) in device pixels with
+  // blockImage, already blockSize pixels square; falls back to the type's colour when it is null.
+  private void drawPreviewPiece(Graphics2D g2d, int type, int centerX, int centerY, int blockSize, Image blockImage) {
+      int shape = PieceTable.shapeIndex(type, 0);
+      int drawX = centerX - PieceTable.width(shape) * blockSize / 2;
+      int drawY = centerY - PieceTable.height(shape) * blockSize / 2;
+      for (int r = 0; r < PieceTable.height(shape); r++) {
+          for (int c = 0; c < PieceTable.width(shape); c++) {
+              if ((PieceTable.rowMask(shape, r) & (1 << c)) != 0) {
+                  if (blockImage != null) {
+                      g2d.drawImage(blockImage, drawX + c * blockSize, drawY + r * blockSize, this);
+                  } else {
+                      g2d.setColor(getColorForType(type));
+                      g2d.fillRect(drawX + c * blockSize, drawY + r * blockSize, blockSize, blockSize);
+                  }
+              }
+          }
       }
   }
 
 
 
 
+  // Half-size copies of the block images for the queue row, scaled once per layout scale rather
+  // than per frame. Kept apart from the sprite cache, which holds the full-size blocks.
+  private Image[] getSmallBlockImages(Image[] squareBlockImages, int size) {
+      if (squareBlockImages == null) return null;
+      if (!java.util.Arrays.equals(smallBlockSources, squareBlockImages)) { // blocks load into the array in place
+          smallBlockImages = new Image[squareBlockImages.length];
+          for (int i = 0; i < squareBlockImages.length; i++) {
+              smallBlockImages[i] = CompatibleImages.convert(squareBlockImages[i], size, size);
+          }
+          smallBlockSources = squareBlockImages.clone();
+      }
+      return smallBlockImages;
+  }
+
+
+
+
   private java.awt.Color getColorForType(int type) {
       switch (type) {
           case 1: return java.awt.Color.decode("#00FFFF");
@@ -78,233 +257,361 @@ class GameRendererPanel extends JPanel {
 
 
 
+  // Background, well border and landed blocks over the layout's design square. Rebuilt only
+  // when the board version, the background image or the layout changes, so a normal frame is
+  // one blit of this layer.
+  private Image getStackLayer(ScreenLayout layout) {
+      Rectangle content = layout.content();
+      if (stackLayer == null || stackLayer.getWidth() != content.width || stackLayer.getHeight() != content.height) {
+          java.awt.GraphicsConfiguration gc = getGraphicsConfiguration();
+          stackLayer = gc != null ? gc.createCompatibleImage(content.width, content.height, java.awt.Transparency.OPAQUE)
+                                  : CompatibleImages.create(content.width, content.height, java.awt.Transparency.OPAQUE);
+          stackLayerValid = false;
+      }
+      GameBoard board = imagePanel.getEngine().getBoard();
+      Image background = imagePanel.getBackgroundImage();
+      if (!stackLayerValid || stackLayerBackground != background || stackLayerVersion != board.getVersion()) {
+          long start = perf.now();
+          Graphics2D lg = stackLayer.createGraphics();
+          try {
+              lg.translate(-content.x, -content.y); // the layer holds the design square only
+              paintStackLayer(lg, board, background, layout);
+          } finally {
+              lg.dispose();
+          }
+          perf.lap(PerfHud.STACK, start);
+          stackLayerBackground = background;
+          stackLayerVersion = board.getVersion();
+          stackLayerValid = true;
+      }
+      return stackLayer;
+  }
+
+
+
+
+  private void paintStackLayer(Graphics2D lg, GameBoard board, Image background, ScreenLayout layout) {
+      Rectangle content = layout.content();
+      if (background != null) {
+          lg.drawImage(sprite(background, content.width, content.height), content.x, content.y, this);
+      } else {
+          lg.setColor(java.awt.Color.BLACK);
+          lg.fillRect(content.x, content.y, content.width, content.height);
+      }
+
+
+      lg.setColor(java.awt.Color.GRAY); // Border for game area, one design pixel thick
+      int left = layout.x(GAME_AREA_X_OFFSET);
+      int top = layout.y(GAME_AREA_Y_OFFSET);
+      int right = layout.x(GAME_AREA_X_OFFSET + ImagePanel.GRID_COLS * BLOCK_SIZE);
+      int bottom = layout.y(GAME_AREA_Y_OFFSET + ImagePanel.GRID_ROWS * BLOCK_SIZE);
+      for (int i = 0; i < Math.max(1, (int) Math.round(layout.getScale())); i++) {
+          lg.drawRect(left - 1 - i, top - 1 - i, right - left + 1 + 2 * i, bottom - top + 1 + 2 * i);
+      }
+
+
+      byte[] cellColors = board.getCellColors();
+      Image[] squareBlockImages = imagePanel.getSquareBlockImages();
+      int blockSize = layout.size(BLOCK_SIZE);
+      if (squareBlockImages != null) {
+          for (int r = 0; r < ImagePanel.GRID_ROWS; r++) {
+              for (int c = 0; c < ImagePanel.GRID_COLS; c++) {
+                  int blockType = cellColors[r * ImagePanel.GRID_COLS + c];
+                  if (blockType != 0) {
+                      if (blockType > 0 && blockType < squareBlockImages.length && squareBlockImages[blockType] != null) {
+                          lg.drawImage(sprite(squareBlockImages[blockType], blockSize, blockSize),
+                                  cellX(layout, c), cellY(layout, r), this);
+                      } else {
+                          lg.setColor(getColorForType(blockType));
+                          lg.fillRect(cellX(layout, c), cellY(layout, r), blockSize, blockSize);
+                      }
+                  }
+              }
+          }
+      }
+  }
+
+
+
+
+  // Device pixel of a well column or row. Cells sit on the scaled design grid (so they line up
+  // with the background) and are drawn layout.size(BLOCK_SIZE) wide, which never leaves a gap.
+  private static int cellX(ScreenLayout layout, int col) { return layout.x(GAME_AREA_X_OFFSET + col * BLOCK_SIZE); }
+  private static int cellY(ScreenLayout layout, int row) { return layout.y(GAME_AREA_Y_OFFSET + row * BLOCK_SIZE); }
+
+
+
+
+  // With a GameLoop attached, frames are drawn by its thread straight into the window's
+  // BufferStrategy, so Swing repaint requests are dropped instead of painting a second copy.
+  public void setActiveRendering(boolean activeRendering) {
+      this.activeRendering = activeRendering;
+      setIgnoreRepaint(activeRendering);
+  }
+
+
+
+
+  @Override
+  public void repaint(long tm, int x, int y, int width, int height) {
+      if (activeRendering) return;
+      if (perf != null) perf.repaintRequested(); // null while JPanel's constructor runs
+      super.repaint(tm, x, y, width, height);
+  }
+
+
+
+
   @Override
   protected void paintComponent(Graphics g) {
       super.paintComponent(g);
       Graphics2D g2d = (Graphics2D) g.create();
+      try {
+          synchronized (imagePanel.getEngine()) {
+              render(g2d);
+          }
+      } finally {
+          g2d.dispose();
+      }
+  }
 
 
-      // <<< UPDATED PAINT LOGIC FOR GAME OVER SCREEN >>>
-      if (imagePanel.isInGameOverScreen()) {
-          // 1. Draw the underlying game state (background and final grid)
-          if (this.imagePanel.getBackgroundImage() != null) { // Should be game.png
-              g2d.drawImage(this.imagePanel.getBackgroundImage(), 0, 0, this.getWidth(), this.getHeight(), this);
-          } else {
-              g2d.setColor(java.awt.Color.BLACK);
-              g2d.fillRect(0, 0, getWidth(), getHeight());
+
+
+  // Draws the current screen into image, sized to the image; needs no window, so it also works
+  // with java.awt.headless=true.
+  public void renderTo(BufferedImage image) {
+      if (getWidth() != image.getWidth() || getHeight() != image.getHeight()) {
+          setSize(image.getWidth(), image.getHeight());
+      }
+      Graphics2D g2d = image.createGraphics();
+      try {
+          g2d.setColor(getBackground());
+          g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+          synchronized (imagePanel.getEngine()) {
+              render(g2d);
           }
+      } finally {
+          g2d.dispose();
+      }
+  }
 
 
-          g2d.setColor(java.awt.Color.GRAY); // Border for game area
-          g2d.drawRect(GAME_AREA_X_OFFSET - 1, GAME_AREA_Y_OFFSET - 1,
-                       ImagePanel.GRID_COLS * BLOCK_SIZE + 1, ImagePanel.GRID_ROWS * BLOCK_SIZE + 1);
 
 
-          int[][] gameGrid = imagePanel.getGameGrid();
-          Image[] squareBlockImages = imagePanel.getSquareBlockImages();
-          if (gameGrid != null && squareBlockImages != null) {
-              for (int r = 0; r < ImagePanel.GRID_ROWS; r++) {
-                  for (int c = 0; c < ImagePanel.GRID_COLS; c++) {
-                      if (gameGrid[r][c] != 0) {
-                          int blockType = gameGrid[r][c];
-                          if (blockType > 0 && blockType < squareBlockImages.length && squareBlockImages[blockType] != null) {
-                              g2d.drawImage(squareBlockImages[blockType],
-                                      GAME_AREA_X_OFFSET + c * BLOCK_SIZE,
-                                      GAME_AREA_Y_OFFSET + r * BLOCK_SIZE,
-                                      BLOCK_SIZE, BLOCK_SIZE, this);
-                          } else {
-                              g2d.setColor(getColorForType(blockType));
-                              g2d.fillRect(GAME_AREA_X_OFFSET + c * BLOCK_SIZE,
-                                           GAME_AREA_Y_OFFSET + r * BLOCK_SIZE,
-                                           BLOCK_SIZE, BLOCK_SIZE);
-                          }
-                      }
-                  }
-              }
-          }
+  // Draws the current screen; called from paintComponent or, in game-loop mode, by the loop thread.
+  // g2d may carry a HiDPI scale. The screen is drawn in device pixels under a translate-only
+  // transform, with everything pre-scaled to the layout; only the perf overlay keeps g2d's scale.
+  void render(Graphics2D g2d) {
+      long paintStart = perf.now();
+      perf.frameStarted(paintStart);
+      AffineTransform transform = g2d.getTransform();
+      ScreenLayout layout = layoutFor(transform.getScaleX());
+      Graphics2D g = (Graphics2D) g2d.create();
+      try {
+          g.setTransform(AffineTransform.getTranslateInstance(transform.getTranslateX(), transform.getTranslateY()));
+          Rectangle content = layout.content();
+          if (layout.isLetterboxed()) paintLetterbox(g, layout, content);
+          g.clipRect(content.x, content.y, content.width, content.height);
+          renderScreen(g, layout, paintStart);
+      } finally {
+          g.dispose();
+      }
+      perf.lap(PerfHud.PAINT, paintStart);
+      if (perf.draw(g2d)) {
+          repaint(PerfHud.BOX);
+      }
+  }
+
+
+
+
+  // The bars around the design square when the panel's aspect ratio is not square.
+  private void paintLetterbox(Graphics2D g, ScreenLayout layout, Rectangle content) {
+      int width = layout.deviceWidth();
+      int height = layout.deviceHeight();
+      g.setColor(getBackground());
+      g.fillRect(0, 0, width, content.y);
+      g.fillRect(0, content.y + content.height, width, height - content.y - content.height);
+      g.fillRect(0, content.y, content.x, content.height);
+      g.fillRect(content.x + content.width, content.y, width - content.x - content.width, content.height);
+  }
+
+
+
+
+  private void renderScreen(Graphics2D g2d, ScreenLayout layout, long paintStart) {
+      Rectangle content = layout.content();
+      long t;
+      // <<< UPDATED PAINT LOGIC FOR GAME OVER SCREEN >>>
+      if (imagePanel.isInGameOverScreen() || this.imagePanel.isInGameMode()) {
+          ensureGameScreenAssets();
+          ensureGlyphs(layout);
+      }
+      if (imagePanel.isInGameOverScreen()) {
+          // 1. Draw the underlying game state (background and final grid)
+          Image layer = getStackLayer(layout); // a rebuild is timed as the stack phase
+          t = perf.now();
+          g2d.drawImage(layer, content.x, content.y, this);
+          t = perf.lap(PerfHud.BACKGROUND, t);
 
 
           // 2. Overlay the end screen image
           if (endScreenImage != null) {
-              g2d.drawImage(endScreenImage, 0, 0, this.getWidth(), this.getHeight(), this);
+              g2d.drawImage(sprite(endScreenImage, content.width, content.height), content.x, content.y, this);
           } else { // Fallback if endscreen.png didn't load
               g2d.setColor(new java.awt.Color(0, 0, 0, 200)); // Semi-transparent dark overlay
-              g2d.fillRect(0, 0, getWidth(), getHeight());
-              if (scoreFont != null) { // Draw "Game Over" text if image fails
-                   g2d.setColor(java.awt.Color.RED);
-                   g2d.setFont(scoreFont.deriveFont(60f));
-                   String goText = "GAME OVER";
-                   FontMetrics goMetrics = g2d.getFontMetrics();
-                   g2d.drawString(goText, (getWidth() - goMetrics.stringWidth(goText)) / 2, getHeight() / 3);
+              g2d.fillRect(content.x, content.y, content.width, content.height);
+              if (gameOverGlyphs != null) { // Draw "Game Over" text if image fails
+                   gameOverGlyphs.drawString(g2d, GAME_OVER_TEXT,
+                           content.x + (content.width - gameOverGlyphs.stringWidth(GAME_OVER_TEXT)) / 2, layout.y(SCREEN_SIZE / 3));
               }
           }
 
 
           // 3. Draw the final score in the middle of the screen
-          if (scoreFont != null) {
-              g2d.setColor(java.awt.Color.WHITE); // Adjust color if needed for visibility on endscreen.png
-              Font finalScoreFont = scoreFont.deriveFont(50f); // Same size as regular score value
-              g2d.setFont(finalScoreFont);
-              String scoreText = String.valueOf(imagePanel.getScore());
-              FontMetrics metrics = g2d.getFontMetrics(finalScoreFont);
-              int scoreWidth = metrics.stringWidth(scoreText);
+          if (scoreValueGlyphs != null) { // Same glyphs as the regular score value
+              int score = imagePanel.getEngine().getScore();
               // Center the score text
-              int scoreX = (getWidth() - scoreWidth) / 2;
-              int scoreY = (getHeight() - metrics.getHeight()) / 2 + metrics.getAscent();
-              g2d.drawString(scoreText, scoreX, scoreY);
+              int scoreX = content.x + (content.width - scoreValueGlyphs.intWidth(score)) / 2;
+              int scoreY = content.y + (content.height - scoreValueGlyphs.getHeight()) / 2 + scoreValueGlyphs.getAscent();
+              scoreValueGlyphs.drawInt(g2d, score, scoreX, scoreY);
           }
 
 
-      } else if (this.imagePanel.isInGameMode() && !this.imagePanel.inPauseMenu) { // Active Gameplay
-          // Draw background image or fill
-          if (this.imagePanel.getBackgroundImage() != null) {
-              g2d.drawImage(this.imagePanel.getBackgroundImage(), 0, 0, this.getWidth(), this.getHeight(), this);
-          } else {
-              g2d.setColor(java.awt.Color.BLACK);
-              g2d.fillRect(0, 0, getWidth(), getHeight());
+          // 4. Rank and personal best, when the game was saved to a score store
+          ScoreStore.Result result = imagePanel.getGameOverResult();
+          if (result != null && scoreLabelGlyphs != null) {
+              scoreLabelGlyphs.drawString(g2d, result.rankText(),
+                      content.x + (content.width - scoreLabelGlyphs.stringWidth(result.rankText())) / 2, layout.y(440));
+              scoreLabelGlyphs.drawString(g2d, result.bestText(),
+                      content.x + (content.width - scoreLabelGlyphs.stringWidth(result.bestText())) / 2, layout.y(480));
           }
+          perf.lap(PerfHud.HUD, t);
+
+
+      } else if (this.imagePanel.isInGameMode() && !this.imagePanel.inPauseMenu) { // Active Gameplay
+          // Background, border and landed blocks come from the cached layer
+          Image layer = getStackLayer(layout);
+          t = perf.now();
+          g2d.drawImage(layer, content.x, content.y, this);
+          t = perf.lap(PerfHud.BACKGROUND, t);
 
 
           // Draw score (regular position)
-          if (scoreFont != null) {
-              g2d.setColor(java.awt.Color.WHITE);
-              Font scoreLabelFont = scoreFont.deriveFont(24f);
-              Font scoreValueFont = scoreFont.deriveFont(50f);
-              String scoreLabelText = "SCORE";
-              g2d.setFont(scoreLabelFont);
-              FontMetrics labelMetrics = g2d.getFontMetrics();
-              int labelWidth = labelMetrics.stringWidth(scoreLabelText);
-              int scoreLabelX = 480;
-              int scoreLabelY = 400;
-              g2d.drawString(scoreLabelText, scoreLabelX, scoreLabelY);
-              String scoreValueText = String.valueOf(imagePanel.getScore());
-              g2d.setFont(scoreValueFont);
-              FontMetrics valueMetrics = g2d.getFontMetrics();
-              int valueWidth = valueMetrics.stringWidth(scoreValueText);
-              int valueHeight = valueMetrics.getHeight();
+          if (scoreLabelGlyphs != null && scoreValueGlyphs != null) {
+              int labelWidth = scoreLabelGlyphs.stringWidth(SCORE_LABEL_TEXT);
+              int scoreLabelX = layout.x(480);
+              int scoreLabelY = layout.y(400);
+              scoreLabelGlyphs.drawString(g2d, SCORE_LABEL_TEXT, scoreLabelX, scoreLabelY);
+              int score = imagePanel.getEngine().getScore();
+              int valueWidth = scoreValueGlyphs.intWidth(score);
+              int valueHeight = scoreValueGlyphs.getHeight();
               int scoreValueX = scoreLabelX + (labelWidth / 2) - (valueWidth / 2);
               int scoreValueY = scoreLabelY + valueHeight;
-              g2d.drawString(scoreValueText, scoreValueX, scoreValueY);
+              scoreValueGlyphs.drawInt(g2d, score, scoreValueX, scoreValueY);
           }
+          t = perf.lap(PerfHud.HUD, t);
 
 
-          // Draw game area border
-          g2d.setColor(java.awt.Color.GRAY);
-          g2d.drawRect(GAME_AREA_X_OFFSET -1, GAME_AREA_Y_OFFSET -1,
-                       ImagePanel.GRID_COLS * BLOCK_SIZE +1, ImagePanel.GRID_ROWS * BLOCK_SIZE +1);
+          Image[] squareBlockImages = imagePanel.getSquareBlockImages();
+          int blockSize = layout.size(BLOCK_SIZE);
 
 
-          // Draw landed blocks on the grid
-          int[][] gameGrid = imagePanel.getGameGrid();
-          Image[] squareBlockImages = imagePanel.getSquareBlockImages();
-          if (gameGrid != null && squareBlockImages != null) {
-              for (int r = 0; r < ImagePanel.GRID_ROWS; r++) {
-                  for (int c = 0; c < ImagePanel.GRID_COLS; c++) {
-                      if (gameGrid[r][c] != 0) {
-                          int blockType = gameGrid[r][c];
-                          if (blockType > 0 && blockType < squareBlockImages.length && squareBlockImages[blockType] != null) {
-                              g2d.drawImage(squareBlockImages[blockType],
-                                      GAME_AREA_X_OFFSET + c * BLOCK_SIZE,
-                                      GAME_AREA_Y_OFFSET + r * BLOCK_SIZE,
-                                      BLOCK_SIZE, BLOCK_SIZE, this);
-                          } else {
-                              g2d.setColor(getColorForType(blockType));
-                              g2d.fillRect(GAME_AREA_X_OFFSET + c * BLOCK_SIZE,
-                                           GAME_AREA_Y_OFFSET + r * BLOCK_SIZE,
-                                           BLOCK_SIZE, BLOCK_SIZE);
+          // Draw current falling piece
+          int currentPieceShape = imagePanel.getEngine().getCurrentPieceShape();
+          if (currentPieceShape >= 0 && squareBlockImages != null) {
+              int currentPieceGridX = imagePanel.getEngine().getCurrentPieceGridX();
+              int currentPieceGridY = imagePanel.getEngine().getCurrentPieceGridY();
+              int currentPieceType = imagePanel.getEngine().getCurrentPieceType();
+              Image blockImageToDraw = (currentPieceType > 0 && currentPieceType < squareBlockImages.length
+                                        && squareBlockImages[currentPieceType] != null) ?
+                                       sprite(squareBlockImages[currentPieceType], blockSize, blockSize) : null;
+
+
+              // Ghost piece at the landing row, drawn first so the falling piece covers any overlap
+              int ghostGridY = imagePanel.getEngine().getGhostY();
+              if (ghostGridY > currentPieceGridY) {
+                  java.awt.Composite previousComposite = g2d.getComposite();
+                  g2d.setComposite(GHOST_COMPOSITE);
+                  for (int r = 0; r < PieceTable.height(currentPieceShape); r++) {
+                      for (int c = 0; c < PieceTable.width(currentPieceShape); c++) {
+                          if ((PieceTable.rowMask(currentPieceShape, r) & (1 << c)) != 0) {
+                              if (blockImageToDraw != null) {
+                                  g2d.drawImage(blockImageToDraw,
+                                          cellX(layout, currentPieceGridX + c),
+                                          cellY(layout, ghostGridY + r), this);
+                              } else {
+                                  g2d.setColor(getColorForType(currentPieceType));
+                                  g2d.fillRect(cellX(layout, currentPieceGridX + c),
+                                               cellY(layout, ghostGridY + r),
+                                               blockSize, blockSize);
+                              }
                           }
                       }
                   }
+                  g2d.setComposite(previousComposite);
               }
-          }
 
 
-          // Draw current falling piece
-          int[][] currentPieceShape = imagePanel.getCurrentPieceShape();
-          if (currentPieceShape != null && squareBlockImages != null) {
-              int currentPieceGridX = imagePanel.getCurrentPieceGridX();
-              int currentPieceGridY = imagePanel.getCurrentPieceGridY();
-              int currentPieceType = imagePanel.getCurrentPieceType();
-              Image blockImageToDraw = (currentPieceType > 0 && currentPieceType < squareBlockImages.length) ?
-                                       squareBlockImages[currentPieceType] : null;
-              for (int r = 0; r < currentPieceShape.length; r++) {
-                  for (int c = 0; c < currentPieceShape[r].length; c++) {
-                      if (currentPieceShape[r][c] != 0) {
+              for (int r = 0; r < PieceTable.height(currentPieceShape); r++) {
+                  for (int c = 0; c < PieceTable.width(currentPieceShape); c++) {
+                      if ((PieceTable.rowMask(currentPieceShape, r) & (1 << c)) != 0) {
                           if (blockImageToDraw != null) {
                               g2d.drawImage(blockImageToDraw,
-                                      GAME_AREA_X_OFFSET + (currentPieceGridX + c) * BLOCK_SIZE,
-                                      GAME_AREA_Y_OFFSET + (currentPieceGridY + r) * BLOCK_SIZE,
-                                      BLOCK_SIZE, BLOCK_SIZE, this);
+                                      cellX(layout, currentPieceGridX + c),
+                                      cellY(layout, currentPieceGridY + r), this);
                           } else {
                               g2d.setColor(getColorForType(currentPieceType));
-                              g2d.fillRect(GAME_AREA_X_OFFSET + (currentPieceGridX + c) * BLOCK_SIZE,
-                                           GAME_AREA_Y_OFFSET + (currentPieceGridY + r) * BLOCK_SIZE,
-                                           BLOCK_SIZE, BLOCK_SIZE);
+                              g2d.fillRect(cellX(layout, currentPieceGridX + c),
+                                           cellY(layout, currentPieceGridY + r),
+                                           blockSize, blockSize);
                           }
                       }
                   }
               }
           }
-
-
-           // Draw the "Next Block" display
-           int[][] nextPieceShape = imagePanel.getNextPieceShape();
-           int nextPieceType = imagePanel.getNextPieceType();
-           if (nextPieceShape != null && nextPieceType > 0) {
-               int nextPieceAreaCenterX = scoreFont != null ? 530 : getWidth() - 80;
-               int nextPieceAreaCenterY = scoreFont != null ? (250 - 85) : (100 - 85);
-               int pieceRows = nextPieceShape.length;
-               int pieceCols = 0;
-               if (pieceRows > 0) {
-                   for(int[] row : nextPieceShape) {
-                       if (row.length > pieceCols) pieceCols = row.length;
-                   }
-               }
-               int nextPiecePixelWidth = pieceCols * BLOCK_SIZE;
-               int nextPiecePixelHeight = pieceRows * BLOCK_SIZE;
-               int nextPieceDrawX = nextPieceAreaCenterX - (nextPiecePixelWidth / 2);
-               int nextPieceDrawY = nextPieceAreaCenterY - (nextPiecePixelHeight / 2);
-               Image nextBlockImage = (nextPieceType > 0 && nextPieceType < squareBlockImages.length) ?
-                                       squareBlockImages[nextPieceType] : null;
-               for (int r = 0; r < nextPieceShape.length; r++) {
-                   for (int c = 0; c < nextPieceShape[r].length; c++) {
-                       if (nextPieceShape[r][c] != 0) {
-                           if (nextBlockImage != null) {
-                               g2d.drawImage(nextBlockImage,
-                                       nextPieceDrawX + c * BLOCK_SIZE,
-                                       nextPieceDrawY + r * BLOCK_SIZE,
-                                       BLOCK_SIZE, BLOCK_SIZE, this);
-                           } else {
-                               g2d.setColor(getColorForType(nextPieceType));
-                               g2d.fillRect(nextPieceDrawX + c * BLOCK_SIZE,
-                                            nextPieceDrawY + r * BLOCK_SIZE,
-                                            BLOCK_SIZE, BLOCK_SIZE);
-                           }
-                       }
-                   }
+          t = perf.lap(PerfHud.PIECE, t);
+
+
+           // Draw the "Next Block" display, then any further queued pieces at half size below it
+           GameEngine engine = imagePanel.getEngine();
+           int nextPieceType = engine.getNextPieceType();
+           if (nextPieceType > 0) {
+               int nextPieceAreaCenterX = layout.x(scoreFont != null ? 530 : SCREEN_SIZE - 80);
+               int nextPieceAreaCenterY = layout.y(scoreFont != null ? (250 - 85) : (100 - 85));
+               Image nextBlockImage = squareBlockImages != null && nextPieceType < squareBlockImages.length
+                       && squareBlockImages[nextPieceType] != null
+                       ? sprite(squareBlockImages[nextPieceType], blockSize, blockSize) : null;
+               drawPreviewPiece(g2d, nextPieceType, nextPieceAreaCenterX, nextPieceAreaCenterY,
+                       blockSize, nextBlockImage);
+               int smallBlockSize = layout.size(SMALL_BLOCK_SIZE);
+               Image[] smallBlockImages = getSmallBlockImages(squareBlockImages, smallBlockSize);
+               for (int i = 1; i < engine.getPreviewLength(); i++) {
+                   int type = engine.getPreviewType(i);
+                   drawPreviewPiece(g2d, type, layout.x(QUEUE_BOX.x + (2 * i - 1) * QUEUE_BOX.width / 8),
+                           layout.y((int) QUEUE_BOX.getCenterY()), smallBlockSize,
+                           smallBlockImages != null && type < smallBlockImages.length ? smallBlockImages[type] : null);
                }
            }
+           perf.lap(PerfHud.PREVIEW, t);
 
 
       } else { // Main Menu or Pause Menu
+          t = paintStart;
           if (this.imagePanel.getBackgroundImage() != null) {
-              g2d.drawImage(this.imagePanel.getBackgroundImage(), 0, 0, this.getWidth(), this.getHeight(), this);
+              g2d.drawImage(sprite(this.imagePanel.getBackgroundImage(), content.width, content.height),
+                      content.x, content.y, this);
           } else {
               g2d.setColor(java.awt.Color.GRAY);
-              g2d.fillRect(0, 0, getWidth(), getHeight());
+              g2d.fillRect(content.x, content.y, content.width, content.height);
           }
+          t = perf.lap(PerfHud.BACKGROUND, t);
 
 
           Image[] overlayImages = this.imagePanel.getOverlayImages();
           int currentOverlayIndex = this.imagePanel.getCurrentOverlayIndex();
 
-          // Dont do overlay if its credits
-          java.awt.Window window = javax.swing.SwingUtilities.getWindowAncestor(this);
-          if (window instanceof javax.swing.JFrame && "Credits".equals(((javax.swing.JFrame)window).getTitle())) {
-              g2d.dispose();
-              return; 
-          }
-
           if (overlayImages != null &&
               currentOverlayIndex >= 0 &&
               currentOverlayIndex < overlayImages.length &&
@@ -314,13 +621,13 @@ class GameRendererPanel extends JPanel {
               Image currentOverlay = overlayImages[currentOverlayIndex];
               int overlayWidth = currentOverlay.getWidth(this);
               int overlayHeight = currentOverlay.getHeight(this);
-              int panelWidth = this.getWidth();
+              int panelWidth = SCREEN_SIZE; // design units, like the overlay's native size
               int x = (panelWidth - overlayWidth) / 2;
               int y;
 
 
               if (this.imagePanel.inPauseMenu && currentOverlayIndex >= 5 && currentOverlayIndex <= 7) {
-                   int pauseMenuItemBaseY = (this.getHeight() - (overlayHeight * 3 + 20 * 2)) / 2;
+                   int pauseMenuItemBaseY = (SCREEN_SIZE - (overlayHeight * 3 + 20 * 2)) / 2;
                    y = pauseMenuItemBaseY + (currentOverlayIndex - 5) * (overlayHeight + 20);
               } else if (currentOverlayIndex >= 5 && currentOverlayIndex <=7 && !this.imagePanel.inPauseMenu) {
                    // This case might occur if currentOverlayIndex is a pause menu index but we're not in pause mode
@@ -331,12 +638,10 @@ class GameRendererPanel extends JPanel {
               } else {
                   y = this.imagePanel.getOverlayYPosition();
               }
-              g2d.drawImage(currentOverlay, x, y, overlayWidth, overlayHeight, this);
+              g2d.drawImage(sprite(currentOverlay, layout), layout.x(x), layout.y(y), this);
 
 
               if (!this.imagePanel.inPauseMenu && !this.imagePanel.isInGameOverScreen() && currentOverlayIndex >= 0 && currentOverlayIndex <= 4) {
-                  int[] bobx = {-100, -60, 430, -250, 300, 550, -140};
-                  int[] boby = {225, -160, 0, 0, 500, 300, 460};
                   List<Image> bobbingImages = this.imagePanel.getBobbingImages();
                   int[] bobbingOffsets = this.imagePanel.getBobbingOffsets();
 
@@ -344,18 +649,23 @@ class GameRendererPanel extends JPanel {
                   for (int i = 0; i < bobbingImages.size(); i++) {
                       Image img = bobbingImages.get(i);
                       if (img != null) {
-                          if (i < bobx.length && i < boby.length && i < bobbingOffsets.length) {
-                              int x_pos = bobx[i];
-                              int y_pos = boby[i] + bobbingOffsets[i];
-                              g2d.drawImage(img, x_pos, y_pos, this);
+                          if (i < BOBBING_X.length && i < BOBBING_Y.length && i < bobbingOffsets.length) {
+                              int x_pos = BOBBING_X[i];
+                              int y_pos = BOBBING_Y[i] + bobbingOffsets[i];
+                              g2d.drawImage(sprite(img, layout), layout.x(x_pos), layout.y(y_pos), this);
                           }
                       }
                   }
               }
           }
+          perf.lap(PerfHud.HUD, t);
       }
-      g2d.dispose();
   }
+
+
+
+
+  public PerfHud getPerfHud() { return perf; }
 }
 
 
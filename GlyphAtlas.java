@@ -0,0 +1,115 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+
+// Printable ASCII pre-rendered once in one font, size and color into a single sprite sheet.
+// Text and integers are drawn by blitting glyph cells, so HUD painting never derives fonts,
+// builds strings or goes through glyph rasterization per frame.
+class GlyphAtlas {
+  private static final char FIRST_CHAR = ' ';
+  private static final char LAST_CHAR = '~';
+
+
+  private final BufferedImage sheet;
+  private final int[] glyphX = new int[LAST_CHAR - FIRST_CHAR + 1];
+  private final int[] glyphWidth = new int[LAST_CHAR - FIRST_CHAR + 1];
+  private final int ascent;
+  private final int height;
+
+
+  public GlyphAtlas(Font font, Color color) {
+      BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+      Graphics2D sg = scratch.createGraphics();
+      FontMetrics metrics = sg.getFontMetrics(font);
+      sg.dispose();
+      this.ascent = metrics.getAscent();
+      this.height = Math.max(1, metrics.getHeight());
+
+
+      int sheetWidth = 0;
+      for (char ch = FIRST_CHAR; ch <= LAST_CHAR; ch++) {
+          glyphX[ch - FIRST_CHAR] = sheetWidth;
+          glyphWidth[ch - FIRST_CHAR] = metrics.charWidth(ch);
+          sheetWidth += glyphWidth[ch - FIRST_CHAR];
+      }
+      this.sheet = CompatibleImages.create(Math.max(1, sheetWidth), height, Transparency.TRANSLUCENT);
+      Graphics2D g = sheet.createGraphics();
+      try {
+          g.setFont(font);
+          g.setColor(color);
+          for (char ch = FIRST_CHAR; ch <= LAST_CHAR; ch++) {
+              g.setClip(glyphX[ch - FIRST_CHAR], 0, glyphWidth[ch - FIRST_CHAR], height);
+              g.drawString(String.valueOf(ch), glyphX[ch - FIRST_CHAR], ascent);
+          }
+      } finally {
+          g.dispose();
+      }
+  }
+
+
+  public int getAscent() { return ascent; }
+  public int getHeight() { return height; }
+
+
+  public int stringWidth(String text) {
+      int width = 0;
+      for (int i = 0; i < text.length(); i++) {
+          width += charWidth(text.charAt(i));
+      }
+      return width;
+  }
+
+
+  public int intWidth(int value) {
+      if (value < 0) return charWidth('-') + intWidth(value == Integer.MIN_VALUE ? Integer.MAX_VALUE : -value);
+      int width = 0;
+      do {
+          width += charWidth((char) ('0' + value % 10));
+          value /= 10;
+      } while (value != 0);
+      return width;
+  }
+
+
+  // (x, baselineY) matches Graphics.drawString.
+  public void drawString(Graphics2D g, String text, int x, int baselineY) {
+      for (int i = 0; i < text.length(); i++) {
+          x += drawChar(g, text.charAt(i), x, baselineY);
+      }
+  }
+
+
+  public void drawInt(Graphics2D g, int value, int x, int baselineY) {
+      if (value < 0) {
+          x += drawChar(g, '-', x, baselineY);
+          value = value == Integer.MIN_VALUE ? Integer.MAX_VALUE : -value;
+      }
+      int divisor = 1;
+      while (value / divisor >= 10) {
+          divisor *= 10;
+      }
+      for (; divisor > 0; divisor /= 10) {
+          x += drawChar(g, (char) ('0' + (value / divisor) % 10), x, baselineY);
+      }
+  }
+
+
+  private int charWidth(char ch) {
+      if (ch < FIRST_CHAR || ch > LAST_CHAR) ch = '?';
+      return glyphWidth[ch - FIRST_CHAR];
+  }
+
+
+  private int drawChar(Graphics2D g, char ch, int x, int baselineY) {
+      if (ch < FIRST_CHAR || ch > LAST_CHAR) ch = '?';
+      int sx = glyphX[ch - FIRST_CHAR];
+      int w = glyphWidth[ch - FIRST_CHAR];
+      int y = baselineY - ascent;
+      g.drawImage(sheet, x, y, x + w, y + height, sx, 0, sx + w, height, null);
+      return w;
+  }
+}
@@ -3,12 +3,10 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
-import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 import javax.swing.Timer;
 
@@ -16,37 +14,64 @@ import javax.swing.Timer;
 
 
 class ImagePanel implements KeyListener {
-
-
-
-
-  public static final int GRID_ROWS = 20;
-  public static final int GRID_COLS = 10;
-  private int[][] gameGrid = new int[GRID_ROWS][GRID_COLS];
+  // The screens GameRendererPanel can draw, for showing one directly without going through input.
+  enum Screen { MENU, GAME, PAUSE, GAME_OVER }
+
+
+
+
+  public static final int GRID_ROWS = GameBoard.ROWS;
+  public static final int GRID_COLS = GameBoard.COLS;
+  static final String[] MENU_OVERLAY_PATHS = {
+      "./res/options/easy.png",
+      "./res/options/medium.png",
+      "./res/options/hard.png",
+      "./res/options/credits.png",
+      "./res/options/quit.png"
+  };
+  static final String[] PAUSE_OVERLAY_PATHS = {
+      "./res/options/pause/mainmenu.png",
+      "./res/options/pause/newgame.png",
+      "./res/options/pause/resume.png"
+  };
+  static final String SQUARE_BASE_PATH = "./res/square/";
+  static final String BOBBING_BASE_PATH = "./res/pieces/glow/";
+  private final GameEngine engine = new GameEngine();
+  // Deals the pieces of every game the player starts; replays bring their own
+  private PieceGenerator pieceGenerator = PieceGenerator.named(PieceGenerator.DEFAULT);
+  private RotationSystem rotationSystem = RotationSystem.SRS;
   private Image[] squareBlockImages = new Image[8];
+  private final AssetRegistry.Lease assets;
+  private final TimerGroup timers = new TimerGroup();
+  private boolean gameAssetsLoaded = false;
 
 
 
 
-  private List<List<int[][]>> pieceDefinitions;
-  private int currentPieceType;
-  private int currentPieceRotation;
-  private int currentPieceGridX;
-  private int currentPieceGridY;
-  private int[][] currentPieceShape;
-
-
-
-
-  private int nextPieceType;
-  private int[][] nextPieceShape;
-
-
-
-
-  private Random random = new Random();
   private Timer gameTimer;
-  private int gameSpeedDelay = 1000;
+  // Drains the input queue between gravity steps in Timer mode; the game loop does it per step.
+  private Timer inputTimer;
+  private final InputController input = new InputController();
+  private final InputController.ActionTarget inputTarget = this::applyAction;
+  // Every game is recorded into replayDirectory when one is set
+  private final Replay.Recorder recorder = new Replay.Recorder();
+  private Path replayDirectory;
+  // Finished games are logged here when set; the last result is shown on the game over screen
+  private ScoreStore scoreStore;
+  private ScoreStore.Result gameOverResult;
+  private Replay playback;
+  private int playbackIndex;
+  private long playbackEventNanos;
+  private Timer playbackTimer;
+  // When set, the bot plays every piece instead of the keyboard
+  private AutoPlayer bot;
+  private int botPiece = -1;
+  private final AnimationScheduler animations = new AnimationScheduler(timers, 16);
+  private int gameSpeedDelay = GameEngine.DIFFICULTY_DELAYS[0];
+  // Set once a GameLoop drives gravity and animation instead of the Swing Timers.
+  private boolean loopDriven = false;
+  private boolean gravityRunning = false;
+  private long gravityNanos;
 
 
 
@@ -59,6 +84,9 @@ class ImagePanel implements KeyListener {
   List<Image> bobbingImages = new ArrayList<>();
   int[] bobbingOffsets = new int[7];
   int[] bobbingSpeeds = new int[7];
+  // Per-sprite SineTable phase and phase advance per animation frame
+  int[] bobbingPhases = new int[7];
+  int[] bobbingPhaseSteps = new int[7];
   final int bobbingAmplitude = 20;
   boolean inPauseMenu = false;
   // <<< NEW STATE VARIABLE >>>
@@ -69,37 +97,40 @@ class ImagePanel implements KeyListener {
 
 
   private GameRendererPanel drawingPanel;
-  private int score = 0;
-  private boolean spaceBarActionProcessed = false;
 
 
 
 
   public ImagePanel(String backgroundPath) {
-      String[] overlayPaths = {
-          "./res/options/easy.png",
-          "./res/options/medium.png",
-          "./res/options/hard.png",
-          "./res/options/credits.png",
-          "./res/options/quit.png"
-      };
-      String[] inGameOverlayPaths = {
-          "./res/options/pause/mainmenu.png",
-          "./res/options/pause/newgame.png",
-          "./res/options/pause/resume.png"
-      };
+      this.assets = AssetRegistry.shared().newLease();
+      // Queue the main menu's own assets first so they decode ahead of everything else
+      assets.requestImage(backgroundPath);
+      for (String path : MENU_OVERLAY_PATHS) {
+          assets.requestImage(path);
+      }
+      for (int i = 1; i <= bobbingOffsets.length; i++) {
+          assets.requestImage(BOBBING_BASE_PATH + i + ".png");
+      }
+      // Credits open from the menu; held by this lease, they are decoded only once
+      assets.requestImage(CreditsPanel.CREDITS_PATH, GameRendererPanel.SCREEN_SIZE, GameRendererPanel.SCREEN_SIZE);
+      requestGameAssets();
       this.drawingPanel = new GameRendererPanel(this);
       this.drawingPanel.addKeyListener(this);
+      this.inputTimer = timers.create(InputController.INPUT_TICK_MILLIS, e -> updateInput());
+      PerfHud perf = drawingPanel.getPerfHud();
+      input.setLatencySink(nanos -> {
+          if (perf.isMeasuring()) perf.record(PerfHud.INPUT, nanos);
+      });
 
 
 
 
+      overlayImages = new Image[MENU_OVERLAY_PATHS.length + PAUSE_OVERLAY_PATHS.length];
       loadBackgroundImage(backgroundPath);
-      loadOverlayImages(overlayPaths);
-      loadOverlayImages(inGameOverlayPaths);
+      loadOverlayImages(MENU_OVERLAY_PATHS, 0);
       loadBobbingImages();
-      loadSquareBlockImages();
-      initializePieceDefinitions();
+      assets.logMilestone("Main menu ready");
+      assets.logWhenIdle("All assets loaded");
 
 
 
@@ -121,212 +152,163 @@ class ImagePanel implements KeyListener {
 
 
 
-  private void initializePieceDefinitions() {
-      pieceDefinitions = new ArrayList<>();
-      List<int[][]> tPiece = new ArrayList<>();
-      tPiece.add(new int[][]{{0,1,0}, {1,1,1}});
-      tPiece.add(new int[][]{{1,0}, {1,1}, {1,0}});
-      tPiece.add(new int[][]{{1,1,1}, {0,1,0}});
-      tPiece.add(new int[][]{{0,1}, {1,1}, {0,1}});
-      pieceDefinitions.add(tPiece);
-      List<int[][]> sPiece = new ArrayList<>();
-      sPiece.add(new int[][]{{0,2,2}, {2,2,0}});
-      sPiece.add(new int[][]{{2,0}, {2,2}, {0,2}});
-      pieceDefinitions.add(sPiece);
-      List<int[][]> lPiece = new ArrayList<>();
-      lPiece.add(new int[][]{{0,0,3}, {3,3,3}});
-      lPiece.add(new int[][]{{3,0}, {3,0}, {3,3}});
-      lPiece.add(new int[][]{{3,3,3}, {3,0,0}});
-      lPiece.add(new int[][]{{3,3}, {0,3}, {0,3}});
-      pieceDefinitions.add(lPiece);
-      List<int[][]> jPiece = new ArrayList<>();
-      jPiece.add(new int[][]{{4,0,0}, {4,4,4}});
-      jPiece.add(new int[][]{{4,4}, {4,0}, {4,0}});
-      jPiece.add(new int[][]{{4,4,4}, {0,0,4}});
-      jPiece.add(new int[][]{{0,4}, {0,4}, {4,4}});
-      pieceDefinitions.add(jPiece);
-      List<int[][]> iPiece = new ArrayList<>();
-      iPiece.add(new int[][]{{5,5,5,5}});
-      iPiece.add(new int[][]{{5},{5},{5},{5}});
-      pieceDefinitions.add(iPiece);
-      List<int[][]> oPiece = new ArrayList<>();
-      oPiece.add(new int[][]{{6,6}, {6,6}});
-      pieceDefinitions.add(oPiece);
-      List<int[][]> zPiece = new ArrayList<>();
-      zPiece.add(new int[][]{{7,7,0}, {0,7,7}});
-      zPiece.add(new int[][]{{0,7}, {7,7}, {7,0}});
-      pieceDefinitions.add(zPiece);
+  // Gameplay, pause and end screen assets decode in the background while the menu is up.
+  private void requestGameAssets() {
+      assets.requestImage("./res/bg/game.png");
+      for (int i = 1; i < squareBlockImages.length; i++) {
+          assets.requestImage(SQUARE_BASE_PATH + i + ".png", GameRendererPanel.BLOCK_SIZE, GameRendererPanel.BLOCK_SIZE);
+      }
+      for (String path : PAUSE_OVERLAY_PATHS) {
+          assets.requestImage(path);
+      }
+      assets.requestImage(GameRendererPanel.END_SCREEN_PATH);
+      assets.requestFont(GameRendererPanel.FONT_PATH);
   }
 
 
 
 
-  private void loadSquareBlockImages() {
-      String basePath = "./res/square/";
-      for (int i = 1; i < squareBlockImages.length; i++) {
-          String imagePath = basePath + i + ".png";
-          File imageFile = new File(imagePath);
-          if (!imageFile.exists()) {
-              System.err.println("Warning: Square block image not found: " + imagePath);
-              squareBlockImages[i] = null;
-              continue;
-          }
-          try {
-              squareBlockImages[i] = ImageIO.read(imageFile);
-          } catch (IOException e) {
-              System.err.println("Error loading square block image: " + imagePath + " - " + e.getMessage());
-              squareBlockImages[i] = null;
-          }
-      }
+  // Collects the gameplay assets the first time a game starts; normally they are decoded by then.
+  void ensureGameAssets() {
+      if (gameAssetsLoaded) return;
+      loadSquareBlockImages();
+      loadOverlayImages(PAUSE_OVERLAY_PATHS, MENU_OVERLAY_PATHS.length);
+      gameAssetsLoaded = true;
+      assets.logMilestone("Game assets ready");
   }
 
 
 
 
-   private void prepareNextPiece() {
-       if (pieceDefinitions == null || pieceDefinitions.isEmpty()) {
-           System.err.println("Error: Piece definitions not initialized!");
-           nextPieceType = 1;
-           nextPieceShape = getPieceShape(0,0);
-           return;
-       }
-       nextPieceType = random.nextInt(pieceDefinitions.size()) + 1;
-       nextPieceShape = getPieceShape(nextPieceType - 1, 0);
-   }
-
-
+  private void loadSquareBlockImages() {
+      for (int i = 1; i < squareBlockImages.length; i++) {
+          squareBlockImages[i] = assets.image(SQUARE_BASE_PATH + i + ".png",
+                  GameRendererPanel.BLOCK_SIZE, GameRendererPanel.BLOCK_SIZE);
+      }
+  }
 
 
-   private void spawnNewPiece() {
-       currentPieceType = nextPieceType;
-       currentPieceShape = nextPieceShape;
-       currentPieceRotation = 0;
 
 
+  // Switches to the game over screen once the engine reports the stack has topped out.
+  private void checkGameOver() {
+      if (!engine.isGameOver() || inGameOverScreen) return;
+      inGameMode = false; // Still important to stop game logic
+      inGameOverScreen = true; // Activate game over screen
+      stopGravity();
+      System.out.println("GAME OVER - Score: " + engine.getScore());
+      if (bot != null) System.out.println(bot.summary());
+      finishRecording();
+      saveScore();
+      // The background will remain game.png; GameRendererPanel will overlay endscreen.png
+      drawingPanel.repaint(); // Trigger repaint to show game over screen
+  }
 
 
-       currentPieceGridX = GRID_COLS / 2 - currentPieceShape[0].length / 2;
-       currentPieceGridY = 0;
 
 
+  // Feeds one player action to the engine and repaints only what it reports as changed.
+  private boolean applyAction(GameEngine.Action action) {
+      if (!engine.step(action)) return false;
+      recorder.record(action.ordinal());
+      checkGameOver();
+      repaintGameDamage();
+      return true;
+  }
 
 
-       // <<< MODIFIED GAME OVER LOGIC >>>
-       if (!canMove(currentPieceGridX, currentPieceGridY, currentPieceShape)) {
-           inGameMode = false; // Still important to stop game logic
-           inGameOverScreen = true; // Activate game over screen
-           if(gameTimer != null) gameTimer.stop();
-           System.out.println("GAME OVER - Score: " + score);
-           // The background will remain game.png; GameRendererPanel will overlay endscreen.png
-           drawingPanel.repaint(); // Trigger repaint to show game over screen
-           return;
-       }
-       // <<< END OF MODIFIED GAME OVER LOGIC >>>
 
 
-       prepareNextPiece();
-   }
+  // One gravity step, from the Swing gravity Timer or the game loop.
+  private void gameTick() {
+      PerfHud perf = drawingPanel.getPerfHud();
+      long start = perf.now();
+      engine.tick();
+      perf.lap(PerfHud.TICK, start);
+      recorder.record(Replay.GRAVITY);
+      checkGameOver();
+      repaintGameDamage();
+  }
 
 
 
 
-  private int[][] getPieceShape(int typeIndex, int rotationIndex) {
-      if (typeIndex < 0 || typeIndex >= pieceDefinitions.size()) {
-           System.err.println("Error: Invalid piece type index: " + typeIndex);
-           return new int[][]{{1}};
-      }
-      List<int[][]> rotations = pieceDefinitions.get(typeIndex);
-      if (rotations == null || rotations.isEmpty()) {
-          System.err.println("Error: No rotations defined for piece type index: " + typeIndex);
-          return new int[][]{{1}};
-      }
-      return rotations.get(rotationIndex % rotations.size());
+  private void startGravity() {
+      gravityRunning = true;
+      if (!loopDriven && gameTimer != null && !gameTimer.isRunning()) gameTimer.start();
+      if (!loopDriven && !inputTimer.isRunning()) inputTimer.start();
   }
 
 
 
 
-  private boolean canMove(int targetX, int targetY, int[][] pieceShape) {
-      if (pieceShape == null) return false;
-      for (int r = 0; r < pieceShape.length; r++) {
-          for (int c = 0; c < pieceShape[r].length; c++) {
-              if (pieceShape[r][c] != 0) {
-                  int actualGridX = targetX + c;
-                  int actualGridY = targetY + r;
+  // Also forgets held keys: their releases may happen while gameplay is not listening.
+  private void stopGravity() {
+      gravityRunning = false;
+      if (gameTimer != null) gameTimer.stop();
+      inputTimer.stop();
+      input.reset();
+  }
 
 
 
 
-                  if (actualGridX < 0 || actualGridX >= GRID_COLS || actualGridY < 0 || actualGridY >= GRID_ROWS) {
-                      return false;
-                  }
-                  if (actualGridY >=0 && gameGrid[actualGridY][actualGridX] != 0) {
-                      return false;
-                  }
+  // Applies queued key events and held-key repeats that are due.
+  private void updateInput() {
+      if (gravityRunning && inGameMode && !inPauseMenu && !inGameOverScreen) {
+          if (bot != null) {
+              // One search per new piece; the hard drop spawns the next one for the following tick
+              if (engine.getPieceCount() != botPiece) {
+                  botPiece = engine.getPieceCount();
+                  bot.play(engine, inputTarget);
               }
+          } else {
+              input.update(System.nanoTime(), inputTarget);
           }
       }
-      return true;
   }
 
 
 
 
-  private void landPiece() {
-      if (currentPieceShape == null) return;
-      for (int r = 0; r < currentPieceShape.length; r++) {
-          for (int c = 0; c < currentPieceShape[r].length; c++) {
-              if (currentPieceShape[r][c] != 0) {
-                  int actualGridX = currentPieceGridX + c;
-                  int actualGridY = currentPieceGridY + r;
-                  if (actualGridY >= 0 && actualGridY < GRID_ROWS && actualGridX >=0 && actualGridX < GRID_COLS) {
-                      gameGrid[actualGridY][actualGridX] = currentPieceType;
-                  }
-              }
+  // Hands gravity and the menu animation over to a GameLoop; the Timers stay as the fallback.
+  void setLoopDriven(boolean loopDriven) {
+      synchronized (engine) {
+          this.loopDriven = loopDriven;
+          gravityNanos = 0;
+          if (loopDriven) {
+              if (gameTimer != null) gameTimer.stop();
+              inputTimer.stop();
+          } else if (gravityRunning) {
+              if (gameTimer != null) gameTimer.start();
+              inputTimer.start();
           }
+          animations.setExternallyDriven(loopDriven);
       }
-      this.score += 5;
-      clearLines();
   }
 
 
 
 
-  private void clearLines() {
-      for (int r = GRID_ROWS - 1; r >= 0; r--) {
-          boolean lineFull = true;
-          for (int c = 0; c < GRID_COLS; c++) {
-              if (gameGrid[r][c] == 0) {
-                  lineFull = false;
-                  break;
-              }
-          }
-          if (lineFull) {
-              this.score += 100;
-              for (int rowToShift = r; rowToShift > 0; rowToShift--) {
-                  for (int col = 0; col < GRID_COLS; col++) {
-                      gameGrid[rowToShift][col] = gameGrid[rowToShift - 1][col];
-                  }
-              }
-              for (int col = 0; col < GRID_COLS; col++) {
-                  gameGrid[0][col] = 0;
-              }
-              r++;
-          }
+  // One fixed logic step of the game loop, called with the engine lock held.
+  void advanceLoop(long stepNanos) {
+      animations.step();
+      updateInput();
+      if (!gravityRunning || !inGameMode || inPauseMenu || inGameOverScreen) return;
+      gravityNanos += stepNanos;
+      long delayNanos = gameSpeedDelay * 1_000_000L;
+      while (gravityNanos >= delayNanos && gravityRunning) {
+          gravityNanos -= delayNanos;
+          gameTick();
       }
   }
 
 
 
 
-  private void movePieceDown() {
-      if (currentPieceShape == null) return;
-      if (canMove(currentPieceGridX, currentPieceGridY + 1, currentPieceShape)) {
-          currentPieceGridY++;
-      } else {
-          landPiece();
-          spawnNewPiece();
-      }
+  private void repaintGameDamage() {
+      drawingPanel.repaintDamage(engine.getDamage());
+      engine.getDamage().reset();
   }
 
 
@@ -340,81 +322,74 @@ class ImagePanel implements KeyListener {
   public List<Image> getBobbingImages() { return bobbingImages; }
   public int[] getBobbingOffsets() { return bobbingOffsets; }
   public GameRendererPanel getDrawingPanel() { return this.drawingPanel; }
-  public int[][] getGameGrid() { return gameGrid; }
+  public GameEngine getEngine() { return engine; }
+  public AssetRegistry.Lease getAssets() { return assets; }
+  public InputController getInput() { return input; }
   public Image[] getSquareBlockImages() { return squareBlockImages; }
-  public int[][] getCurrentPieceShape() { return currentPieceShape; }
-  public int getCurrentPieceGridX() { return currentPieceGridX; }
-  public int getCurrentPieceGridY() { return currentPieceGridY; }
-  public int getCurrentPieceType() { return currentPieceType; }
-  public int getScore() { return score; }
-  public int getNextPieceType() { return nextPieceType; }
-  public int[][] getNextPieceShape() { return nextPieceShape; }
   // <<< GETTER FOR NEW STATE >>>
   public boolean isInGameOverScreen() { return inGameOverScreen; }
 
 
 
 
+  // Stops this screen's timers and releases its assets; the shared registry keeps anything
+  // another lease still holds.
+  public void dispose() {
+      finishRecording();
+      timers.stopAll();
+      assets.close();
+  }
+
+
+
+
   private void startBobbingAnimation() {
-      Timer animationTimer = new Timer(16, e -> {
-          timerTick++;
-          for (int i = 0; i < bobbingOffsets.length; i++) {
-              if (i < bobbingSpeeds.length && bobbingSpeeds[i] > 0) {
-                  bobbingOffsets[i] = (int) (Math.sin((timerTick + i * 20) / (double) bobbingSpeeds[i]) * bobbingAmplitude);
+      animations.add(this::advanceMenuAnimation);
+      updateAnimatedScene();
+  }
+
+
+
+
+  // The glow sprites are only drawn on the main menu, so the animation runs only there.
+  private void updateAnimatedScene() {
+      animations.setSceneVisible(!inGameMode && !inGameOverScreen && !inPauseMenu);
+  }
+
+
+
+
+  private void advanceMenuAnimation() {
+      timerTick++;
+      for (int i = 0; i < bobbingOffsets.length; i++) {
+          if (i < bobbingSpeeds.length && bobbingSpeeds[i] > 0) {
+              bobbingPhases[i] = (bobbingPhases[i] + bobbingPhaseSteps[i]) & SineTable.PHASE_MASK;
+              int offset = SineTable.scaled(bobbingPhases[i], bobbingAmplitude);
+              if (offset != bobbingOffsets[i]) {
+                  int previousOffset = bobbingOffsets[i];
+                  bobbingOffsets[i] = offset;
+                  drawingPanel.damageBobbingSprite(i, previousOffset, offset);
               }
           }
-          if (!inGameMode && !inGameOverScreen) { // Only repaint if on main menu
-              drawingPanel.repaint();
-          }
-      });
-      animationTimer.start();
+      }
+      drawingPanel.repaintBobbingSprites();
   }
 
 
 
 
-  private void loadBackgroundImage(String path) {
-      File bgFile = new File(path);
-      if (!bgFile.exists()) {
-          System.err.println("Warning: Background image not found: " + path);
-          this.backgroundImage = null;
-          return;
-      }
-      try {
-          this.backgroundImage = ImageIO.read(bgFile);
-      } catch (IOException e) {
-          System.err.println("Error loading background image: " + path + " - " + e.getMessage());
-          this.backgroundImage = null;
-      }
+  // Backgrounds stay at their native resolution; the renderer rasterizes them once per layout scale.
+  void loadBackgroundImage(String path) {
+      this.backgroundImage = assets.image(path);
   }
 
 
 
 
-  private void loadOverlayImages(String[] paths) {
-      if (paths == null || paths.length == 0) {
-          return;
-      }
-      int oldLength = (overlayImages == null) ? 0 : overlayImages.length;
-      Image[] newImages = new Image[oldLength + paths.length];
-      if (overlayImages != null) {
-          System.arraycopy(overlayImages, 0, newImages, 0, oldLength);
-      }
+  private void loadOverlayImages(String[] paths, int firstIndex) {
       for (int i = 0; i < paths.length; i++) {
-          File imageFile = new File(paths[i]);
-          if (!imageFile.exists()) {
-              System.err.println("Warning: Overlay image not found: " + paths[i]);
-              newImages[oldLength + i] = null;
-              continue;
-          }
-          try {
-              newImages[oldLength + i] = ImageIO.read(imageFile);
-          } catch (IOException e) {
-              System.err.println("Error loading overlay image: " + paths[i] + " - " + e.getMessage());
-              newImages[oldLength + i] = null;
-          }
+          overlayImages[firstIndex + i] = assets.image(paths[i]);
       }
-      overlayImages = newImages;
   }
 
 
@@ -422,29 +397,15 @@ class ImagePanel implements KeyListener {
 
   private void loadBobbingImages() {
       bobbingImages.clear();
-      String bobbingBasePath = "./res/pieces/glow/";
-      for (int i = 1; i <= 7; i++) {
-          String imagePath = bobbingBasePath + i + ".png";
-          File imageFile = new File(imagePath);
-          if (!imageFile.exists()) {
-               System.err.println("Warning: Bobbing image not found: " + imagePath);
-              bobbingImages.add(null);
-              if (bobbingImages.size() -1 < bobbingOffsets.length) bobbingOffsets[bobbingImages.size() -1] = 0;
-              if (bobbingImages.size() -1 < bobbingSpeeds.length) bobbingSpeeds[bobbingImages.size() -1] = 0;
-              continue;
-          }
-          try {
-              Image loadedImage = ImageIO.read(imageFile);
-              bobbingImages.add(loadedImage);
-              if (loadedImage != null) {
-                  if (bobbingImages.size() - 1 < bobbingOffsets.length && bobbingImages.size() - 1 < bobbingSpeeds.length) {
-                      bobbingOffsets[bobbingImages.size() - 1] = 0;
-                      bobbingSpeeds[bobbingImages.size() - 1] = (int) (Math.random() * 50 + 50);
-                  }
-              }
-          } catch (IOException e) {
-              System.err.println("Error loading bobbing image: " + imagePath + " - " + e.getMessage());
-              bobbingImages.add(null);
+      for (int i = 1; i <= bobbingOffsets.length; i++) {
+          Image loadedImage = assets.image(BOBBING_BASE_PATH + i + ".png");
+          bobbingImages.add(loadedImage);
+          bobbingOffsets[i - 1] = 0;
+          bobbingSpeeds[i - 1] = loadedImage != null ? (int) (Math.random() * 50 + 50) : 0;
+          if (bobbingSpeeds[i - 1] > 0) {
+              // sin((tick + (i - 1) * 20) / speed), evaluated incrementally from the table
+              bobbingPhaseSteps[i - 1] = SineTable.phaseOf(1.0 / bobbingSpeeds[i - 1]);
+              bobbingPhases[i - 1] = SineTable.phaseOf((timerTick + (i - 1) * 20) / (double) bobbingSpeeds[i - 1]);
           }
       }
   }
@@ -459,15 +420,9 @@ class ImagePanel implements KeyListener {
       }
       switch (currentOverlayIndex) {
           case 0:
-              this.gameSpeedDelay = 1000;
-              openGameScreen();
-              break;
           case 1:
-              this.gameSpeedDelay = 300;
-              openGameScreen();
-              break;
           case 2:
-              this.gameSpeedDelay = 100;
+              this.gameSpeedDelay = GameEngine.DIFFICULTY_DELAYS[currentOverlayIndex];
               openGameScreen();
               break;
           case 3:
@@ -484,37 +439,215 @@ class ImagePanel implements KeyListener {
 
 
   public void openGameScreen() {
+      finishRecording();
+      engine.setGenerator(pieceGenerator);
+      engine.setRotationSystem(rotationSystem);
+      startGame(System.nanoTime());
+      if (replayDirectory != null) {
+          recorder.begin(engine.getSeed(), gameSpeedDelay, pieceGenerator.spec(), rotationSystem.spec());
+      }
+
+
+
+
+      if (gameTimer == null) {
+           gameTimer = timers.create(this.gameSpeedDelay, ae -> {
+               if (inGameMode && !inPauseMenu && !inGameOverScreen) { // Ensure not game over
+                   gameTick();
+               }
+           });
+      }
+      stopGravity();
+      gameTimer.setDelay(this.gameSpeedDelay);
+      gameTimer.setInitialDelay(this.gameSpeedDelay);
+      gravityNanos = 0;
+      startGravity();
+      updateAnimatedScene();
+      drawingPanel.repaint();
+      drawingPanel.requestFocusInWindow();
+  }
+
+
+
+
+  // Shows a fresh game with the given seed; gravity and input are started by the caller.
+  private void startGame(long seed) {
       inGameMode = true;
       inPauseMenu = false;
       // <<< RESET GAME OVER STATE >>>
       inGameOverScreen = false;
-      this.score = 0;
+      ensureGameAssets();
       loadBackgroundImage("./res/bg/game.png");
-      for (int r = 0; r < GRID_ROWS; r++) {
-          for (int c = 0; c < GRID_COLS; c++) {
-              gameGrid[r][c] = 0;
+      engine.newGame(seed);
+      engine.getDamage().reset(); // the full repaint below covers it
+  }
+
+
+
+
+  // Switches straight to screen over whatever the engine holds, with gravity and input stopped;
+  // used to render states offscreen.
+  void showScreen(Screen screen) {
+      synchronized (engine) {
+          stopGravity();
+          inGameMode = screen == Screen.GAME || screen == Screen.PAUSE;
+          inPauseMenu = screen == Screen.PAUSE;
+          inGameOverScreen = screen == Screen.GAME_OVER;
+          if (screen == Screen.MENU) {
+              loadBackgroundImage("./res/bg/mainmenu.png");
+              currentOverlayIndex = 0;
+          } else {
+              ensureGameAssets();
+              loadBackgroundImage("./res/bg/game.png");
+              if (screen == Screen.PAUSE) currentOverlayIndex = 7;
           }
+          updateAnimatedScene();
+          drawingPanel.repaint();
       }
-       prepareNextPiece();
-       spawnNewPiece();
+  }
+
+
+
+
+  public void setPieceGenerator(PieceGenerator pieceGenerator) {
+      this.pieceGenerator = pieceGenerator;
+  }
+
+
+
+
+  public void setRotationSystem(RotationSystem rotationSystem) {
+      this.rotationSystem = rotationSystem;
+  }
+
+
+
+
+  public void setBot(AutoPlayer bot) {
+      this.bot = bot;
+      this.botPiece = -1;
+  }
+
+
+
+
+  public void setReplayDirectory(Path replayDirectory) {
+      this.replayDirectory = replayDirectory;
+  }
+
+
+
+
+  public void setScoreStore(ScoreStore scoreStore) {
+      this.scoreStore = scoreStore;
+  }
+
+
 
 
+  public ScoreStore.Result getGameOverResult() { return gameOverResult; }
 
 
-      if (gameTimer != null && gameTimer.isRunning()) {
-          gameTimer.stop();
+
+
+  // Logs the finished game under its difficulty; replays played back on screen are not new games.
+  private void saveScore() {
+      gameOverResult = null;
+      int difficulty = GameEngine.DIFFICULTY_DELAYS.length - 1;
+      while (difficulty >= 0 && GameEngine.DIFFICULTY_DELAYS[difficulty] != gameSpeedDelay) difficulty--;
+      if (scoreStore == null || playback != null || difficulty < 0) return;
+      try {
+          gameOverResult = scoreStore.record(difficulty, engine.getScore(), engine.getPieceCount(), engine.getSeed(),
+                  bot != null ? ScoreStore.SOURCE_BOT : ScoreStore.SOURCE_PLAYER);
+          System.out.println("[scores] " + GameEngine.DIFFICULTY_NAMES[difficulty] + " " + gameOverResult.rankText()
+                  + (gameOverResult.newBest ? ", new best" : ""));
+      } catch (IOException e) {
+          System.err.println("Error saving score: " + e.getMessage());
       }
-      if (inGameMode) {
-           gameTimer = new Timer(this.gameSpeedDelay, ae -> {
-               if (inGameMode && !inPauseMenu && !inGameOverScreen) { // Ensure not game over
-                   movePieceDown();
-                   drawingPanel.repaint();
-               }
-           });
-           gameTimer.start();
+  }
+
+
+
+
+  private void finishRecording() {
+      if (!recorder.isRecording()) return;
+      Replay replay = recorder.finish(engine);
+      String name = "replay-" + java.time.LocalDateTime.now()
+              .format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".rbr";
+      Path path = replayDirectory.resolve(name);
+      try {
+          java.nio.file.Files.createDirectories(replayDirectory);
+          replay.write(path);
+          System.out.println("[replay] Saved " + path + " (" + replay.length() + " events, score " + replay.getFinalScore() + ")");
+      } catch (IOException e) {
+          System.err.println("Error saving replay: " + path + " - " + e.getMessage());
+      }
+  }
+
+
+
+
+  // Plays a replay on screen at its recorded pace; player input is ignored until it ends
+  // (Escape stops it early).
+  public void playReplay(Replay replay) {
+      synchronized (engine) {
+          finishRecording();
+          stopGravity();
+          gameSpeedDelay = replay.getGravityDelayMillis();
+          engine.setGenerator(PieceGenerator.named(replay.getGeneratorSpec()));
+          engine.setRotationSystem(RotationSystem.named(replay.getRotationSpec()));
+          startGame(replay.getSeed());
+          playback = replay;
+          playbackIndex = 0;
+          playbackEventNanos = System.nanoTime();
+          if (playbackTimer == null) {
+              playbackTimer = timers.create(InputController.INPUT_TICK_MILLIS, e -> advancePlayback());
+          }
+          playbackTimer.start();
+          updateAnimatedScene();
+          drawingPanel.repaint();
+      }
+  }
+
+
+
+
+  private void advancePlayback() {
+      synchronized (engine) {
+          if (playback == null) return;
+          long now = System.nanoTime();
+          while (playbackIndex < playback.length()) {
+              long due = playbackEventNanos + playback.delayMillis(playbackIndex) * 1_000_000L;
+              if (due > now) return;
+              playbackEventNanos = due;
+              int code = playback.code(playbackIndex++);
+              if (code == Replay.GRAVITY) {
+                  gameTick();
+              } else {
+                  applyAction(Replay.action(code));
+              }
+          }
+          stopPlayback();
+      }
+  }
+
+
+
+
+  private void stopPlayback() {
+      playbackTimer.stop();
+      boolean complete = playbackIndex == playback.length();
+      boolean matches = engine.getScore() == playback.getFinalScore() && engine.stateHash() == playback.getFinalHash();
+      System.out.println("[replay] " + (complete ? (matches ? "Playback matches the recording" : "Playback DIVERGED from the recording")
+              : "Playback stopped") + " - score " + engine.getScore());
+      playback = null;
+      if (!inGameOverScreen) {
+          inGameMode = false;
+          loadBackgroundImage("./res/bg/mainmenu.png");
+          currentOverlayIndex = 0;
+          updateAnimatedScene();
+          drawingPanel.repaint();
       }
-      drawingPanel.repaint();
-      drawingPanel.requestFocusInWindow();
   }
 
 
@@ -522,8 +655,8 @@ class ImagePanel implements KeyListener {
 
   private void showCreditsOverlay() {
       JFrame creditsFrame = new JFrame("Credits");
-      ImagePanel creditsLogic = new ImagePanel("./res/credits.png");
-      creditsFrame.setContentPane(creditsLogic.getDrawingPanel());
+      CreditsPanel creditsPanel = new CreditsPanel(assets);
+      creditsFrame.setContentPane(creditsPanel);
       creditsFrame.setSize(720, 720);
       creditsFrame.setResizable(false);
       creditsFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
@@ -533,13 +666,13 @@ class ImagePanel implements KeyListener {
 
 
 
-      creditsLogic.getDrawingPanel().addMouseListener(new MouseAdapter() {
+      creditsPanel.addMouseListener(new MouseAdapter() {
           @Override
           public void mouseClicked(MouseEvent e) {
               creditsFrame.dispose();
           }
       });
-      creditsLogic.getDrawingPanel().requestFocusInWindow();
+      creditsPanel.requestFocusInWindow();
   }
 
 
@@ -550,8 +683,24 @@ class ImagePanel implements KeyListener {
 
 
 
+  // Input is applied under the engine lock so it never interleaves with a game-loop step or frame.
   @Override public void keyPressed(KeyEvent e) {
+      synchronized (engine) {
+          handleKeyPressed(e);
+          updateAnimatedScene();
+      }
+  }
+
+
+
+
+  private void handleKeyPressed(KeyEvent e) {
       int keyCode = e.getKeyCode();
+      if (keyCode == KeyEvent.VK_F3) { // Performance overlay, on any screen
+          drawingPanel.getPerfHud().toggle();
+          drawingPanel.repaint();
+          return;
+      }
       boolean needsRepaint = false;
 
 
@@ -565,7 +714,9 @@ class ImagePanel implements KeyListener {
               needsRepaint = true;
           }
       } else if (inGameMode) { // <<< END HANDLE INPUT FOR GAME OVER SCREEN >>>
-          if (inPauseMenu) {
+          if (playback != null) {
+              if (keyCode == KeyEvent.VK_ESCAPE) stopPlayback();
+          } else if (inPauseMenu) {
               int pauseMenuStartIndex = 5;
               int pauseMenuEndIndex = 7;
               if (overlayImages == null || pauseMenuStartIndex >= overlayImages.length ||
@@ -591,7 +742,8 @@ class ImagePanel implements KeyListener {
                           case 5:
                               inPauseMenu = false;
                               inGameMode = false;
-                              if (gameTimer != null) gameTimer.stop();
+                              stopGravity();
+                              finishRecording();
                               loadBackgroundImage("./res/bg/mainmenu.png");
                               currentOverlayIndex = 0;
                               needsRepaint = true;
@@ -603,7 +755,7 @@ class ImagePanel implements KeyListener {
                               break;
                           case 7:
                               inPauseMenu = false;
-                              if (gameTimer != null && !gameTimer.isRunning()) gameTimer.start();
+                              startGravity();
                               needsRepaint = true;
                               break;
                           default:
@@ -613,50 +765,17 @@ class ImagePanel implements KeyListener {
                   }
               } else if (keyCode == KeyEvent.VK_P || keyCode == KeyEvent.VK_ESCAPE) {
                   inPauseMenu = false;
-                  if (gameTimer != null && !gameTimer.isRunning()) gameTimer.start();
+                  startGravity();
                   needsRepaint = true;
               }
           } else {
-              if (currentPieceShape == null) return;
-              if (gameTimer != null && gameTimer.isRunning()) {
-                  if (keyCode == KeyEvent.VK_LEFT || keyCode == KeyEvent.VK_A) {
-                      if (canMove(currentPieceGridX - 1, currentPieceGridY, currentPieceShape)) {
-                          currentPieceGridX--;
-                          needsRepaint = true;
-                      }
-                  } else if (keyCode == KeyEvent.VK_RIGHT || keyCode == KeyEvent.VK_D) {
-                      if (canMove(currentPieceGridX + 1, currentPieceGridY, currentPieceShape)) {
-                          currentPieceGridX++;
-                          needsRepaint = true;
-                      }
-                  } else if (keyCode == KeyEvent.VK_DOWN || keyCode == KeyEvent.VK_S) {
-                      movePieceDown();
-                      needsRepaint = true;
-                  } else if (keyCode == KeyEvent.VK_UP || keyCode == KeyEvent.VK_W) {
-                      int nextRotation = (currentPieceRotation + 1);
-                      if (currentPieceType > 0 && currentPieceType -1 < pieceDefinitions.size()) {
-                           nextRotation %= pieceDefinitions.get(currentPieceType - 1).size();
-                      } else {
-                          nextRotation = 0;
-                      }
-                      int[][] nextShape = getPieceShape(currentPieceType - 1, nextRotation);
-                      if (canMove(currentPieceGridX, currentPieceGridY, nextShape)) {
-                          currentPieceRotation = nextRotation;
-                          currentPieceShape = nextShape;
-                          needsRepaint = true;
-                      }
-                  } else if (keyCode == KeyEvent.VK_SPACE) {
-                      if (!spaceBarActionProcessed) {
-                          while(canMove(currentPieceGridX, currentPieceGridY + 1, currentPieceShape)) {
-                              currentPieceGridY++;
-                          }
-                          landPiece();
-                          spawnNewPiece();
-                          needsRepaint = true;
-                          spaceBarActionProcessed = true;
-                      }
+              if (engine.getCurrentPieceShape() < 0) return;
+              if (gravityRunning) {
+                  InputController.Key key = gameKeyFor(keyCode);
+                  if (key != null) {
+                      input.press(key, System.nanoTime()); // applied by the next input tick
                   } else if (keyCode == KeyEvent.VK_P || keyCode == KeyEvent.VK_ESCAPE) {
-                      if (gameTimer != null) gameTimer.stop();
+                      stopGravity();
                       inPauseMenu = true;
                       currentOverlayIndex = 7;
                       needsRepaint = true;
@@ -698,9 +817,24 @@ class ImagePanel implements KeyListener {
 
 
   @Override public void keyReleased(KeyEvent e) {
-      int keyCode = e.getKeyCode();
-      if (keyCode == KeyEvent.VK_SPACE) {
-          spaceBarActionProcessed = false;
+      InputController.Key key = gameKeyFor(e.getKeyCode());
+      if (key != null) {
+          input.release(key, System.nanoTime());
+      }
+  }
+
+
+
+
+  private static InputController.Key gameKeyFor(int keyCode) {
+      switch (keyCode) {
+          case KeyEvent.VK_LEFT: case KeyEvent.VK_A: return InputController.Key.LEFT;
+          case KeyEvent.VK_RIGHT: case KeyEvent.VK_D: return InputController.Key.RIGHT;
+          case KeyEvent.VK_DOWN: case KeyEvent.VK_S: return InputController.Key.SOFT_DROP;
+          case KeyEvent.VK_UP: case KeyEvent.VK_W: case KeyEvent.VK_X: return InputController.Key.ROTATE;
+          case KeyEvent.VK_Z: return InputController.Key.ROTATE_CCW;
+          case KeyEvent.VK_SPACE: return InputController.Key.HARD_DROP;
+          default: return null;
       }
   }
 }
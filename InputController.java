@@ -0,0 +1,192 @@
+import java.util.function.LongConsumer;
+
+
+// Turns timestamped key down/up events into engine actions. Events are queued from the EDT and
+// consumed by the game tick, which replays them in timestamp order and derives held-key
+// repeats itself: delayed auto shift (DAS), auto repeat rate (ARR) and the soft-drop rate are
+// computed from event times, so movement speed no longer depends on the OS key-repeat
+// settings or on when the tick happens to run. OS repeats of a held key are ignored.
+class InputController {
+  public enum Key { LEFT, RIGHT, SOFT_DROP, ROTATE, HARD_DROP, ROTATE_CCW }
+
+
+  public interface ActionTarget {
+      // Applies the action; false if it had no effect (blocked, game over).
+      boolean apply(GameEngine.Action action);
+  }
+
+
+  public static final int DEFAULT_DAS_MILLIS = 170;
+  public static final int DEFAULT_ARR_MILLIS = 50;
+  public static final int DEFAULT_SOFT_DROP_MILLIS = 50;
+  // How often Timer mode drains the queue; the game loop drains it every logic step.
+  public static final int INPUT_TICK_MILLIS = 8;
+  private static final int QUEUE_CAPACITY = 64;
+  private static final Key[] KEYS = Key.values();
+  private static final long NEVER = Long.MAX_VALUE;
+
+
+  // Ring buffer of pending events, filled on the EDT and drained by update().
+  private final long[] eventTimes = new long[QUEUE_CAPACITY];
+  private final byte[] eventKeys = new byte[QUEUE_CAPACITY];
+  private final boolean[] eventDown = new boolean[QUEUE_CAPACITY];
+  private int head;
+  private int size;
+
+
+  private long dasNanos = DEFAULT_DAS_MILLIS * 1_000_000L;
+  private long arrNanos = DEFAULT_ARR_MILLIS * 1_000_000L;
+  private long softDropNanos = DEFAULT_SOFT_DROP_MILLIS * 1_000_000L;
+  private final boolean[] held = new boolean[KEYS.length];
+  private Key shiftKey;
+  private long nextShiftAt = NEVER;
+  private long nextSoftDropAt = NEVER;
+  private LongConsumer latencySink;
+
+
+  // arrMillis 0 shifts straight to the wall once DAS has elapsed.
+  public void setTiming(int dasMillis, int arrMillis, int softDropMillis) {
+      this.dasNanos = Math.max(0, dasMillis) * 1_000_000L;
+      this.arrNanos = Math.max(0, arrMillis) * 1_000_000L;
+      this.softDropNanos = Math.max(1, softDropMillis) * 1_000_000L;
+  }
+
+
+  // Receives the delay between a key press and the state change it caused, in nanoseconds.
+  public void setLatencySink(LongConsumer latencySink) {
+      this.latencySink = latencySink;
+  }
+
+
+  public void press(Key key, long nanos) {
+      enqueue(key, true, nanos);
+  }
+
+
+  public void release(Key key, long nanos) {
+      enqueue(key, false, nanos);
+  }
+
+
+  // Drops pending events and held keys, e.g. when gameplay is paused or restarted.
+  public synchronized void reset() {
+      size = 0;
+      java.util.Arrays.fill(held, false);
+      shiftKey = null;
+      nextShiftAt = NEVER;
+      nextSoftDropAt = NEVER;
+  }
+
+
+  // Applies every event up to nowNanos, and every repeat falling due in between, in time order.
+  public void update(long nowNanos, ActionTarget target) {
+      while (true) {
+          long time;
+          Key key;
+          boolean down;
+          synchronized (this) {
+              if (size == 0 || eventTimes[head] > nowNanos) break;
+              time = eventTimes[head];
+              key = KEYS[eventKeys[head]];
+              down = eventDown[head];
+              head = (head + 1) % QUEUE_CAPACITY;
+              size--;
+          }
+          applyRepeats(time, target);
+          if (down) {
+              keyDown(key, time, target);
+          } else {
+              keyUp(key, time);
+          }
+      }
+      applyRepeats(nowNanos, target);
+  }
+
+
+  private synchronized void enqueue(Key key, boolean down, long nanos) {
+      if (size == QUEUE_CAPACITY) return; // the tick has stalled; drop rather than block the EDT
+      int tail = (head + size) % QUEUE_CAPACITY;
+      eventTimes[tail] = nanos;
+      eventKeys[tail] = (byte) key.ordinal();
+      eventDown[tail] = down;
+      size++;
+  }
+
+
+  private void keyDown(Key key, long time, ActionTarget target) {
+      if (held[key.ordinal()]) return; // OS key repeat
+      held[key.ordinal()] = true;
+      switch (key) {
+          case LEFT:
+          case RIGHT:
+              shiftKey = key;
+              nextShiftAt = time + dasNanos;
+              applyPress(actionFor(key), time, target);
+              break;
+          case SOFT_DROP:
+              nextSoftDropAt = time + softDropNanos;
+              applyPress(GameEngine.Action.SOFT_DROP, time, target);
+              break;
+          case ROTATE:
+              applyPress(GameEngine.Action.ROTATE, time, target);
+              break;
+          case ROTATE_CCW:
+              applyPress(GameEngine.Action.ROTATE_CCW, time, target);
+              break;
+          case HARD_DROP:
+              applyPress(GameEngine.Action.HARD_DROP, time, target);
+              break;
+      }
+  }
+
+
+  private void keyUp(Key key, long time) {
+      held[key.ordinal()] = false;
+      if (key == shiftKey) {
+          // Falling back to a still-held opposite direction restarts its DAS
+          Key other = key == Key.LEFT ? Key.RIGHT : Key.LEFT;
+          if (held[other.ordinal()]) {
+              shiftKey = other;
+              nextShiftAt = time + dasNanos;
+          } else {
+              shiftKey = null;
+              nextShiftAt = NEVER;
+          }
+      } else if (key == Key.SOFT_DROP) {
+          nextSoftDropAt = NEVER;
+      }
+  }
+
+
+  private void applyRepeats(long until, ActionTarget target) {
+      while (true) {
+          long next = Math.min(nextShiftAt, nextSoftDropAt);
+          if (next > until) return;
+          if (next == nextShiftAt) {
+              GameEngine.Action shift = actionFor(shiftKey);
+              if (arrNanos == 0) {
+                  while (target.apply(shift)) { }
+                  nextShiftAt = until + 1; // keep pressing against the wall on later ticks
+              } else {
+                  target.apply(shift);
+                  nextShiftAt += arrNanos;
+              }
+          } else {
+              target.apply(GameEngine.Action.SOFT_DROP);
+              nextSoftDropAt += softDropNanos;
+          }
+      }
+  }
+
+
+  private void applyPress(GameEngine.Action action, long time, ActionTarget target) {
+      if (target.apply(action) && latencySink != null) {
+          latencySink.accept(System.nanoTime() - time);
+      }
+  }
+
+
+  private static GameEngine.Action actionFor(Key key) {
+      return key == Key.LEFT ? GameEngine.Action.MOVE_LEFT : GameEngine.Action.MOVE_RIGHT;
+  }
+}
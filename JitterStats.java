@@ -0,0 +1,95 @@
+// Running statistics of the interval between consecutive events (logic ticks, presented frames)
+// against the interval they were scheduled for, or, for events with a due time of their own, of
+// how late each one ran. Reset after every report.
+class JitterStats {
+  private final String name;
+  private final boolean scheduled;
+  private long targetNanos;
+  private long lastNanos = -1;
+  // First event since the last reset, for the rate of scheduled events
+  private long firstNanos = -1;
+  private long count;
+  private double sum;
+  private double sumSquares;
+  private long maxDeviation;
+
+
+  public JitterStats(String name, long targetNanos) {
+      this(name, targetNanos, false);
+  }
+
+
+  private JitterStats(String name, long targetNanos, boolean scheduled) {
+      this.name = name;
+      this.targetNanos = targetNanos;
+      this.scheduled = scheduled;
+  }
+
+
+  // Statistics of lateness against each event's due time, recorded with mark(due, now).
+  public static JitterStats scheduled(String name) {
+      return new JitterStats(name, 0, true);
+  }
+
+
+  public void setTargetNanos(long targetNanos) {
+      this.targetNanos = targetNanos;
+  }
+
+
+  // Records an event at the given System.nanoTime(); the first event only starts the clock.
+  public void mark(long nowNanos) {
+      if (lastNanos >= 0) {
+          long interval = nowNanos - lastNanos;
+          count++;
+          sum += interval;
+          sumSquares += (double) interval * interval;
+          if (targetNanos > 0) {
+              long deviation = Math.abs(interval - targetNanos);
+              if (deviation > maxDeviation) maxDeviation = deviation;
+          }
+      }
+      lastNanos = nowNanos;
+  }
+
+
+  // Records an event that was due at dueNanos and ran at nowNanos (both System.nanoTime()).
+  public void mark(long dueNanos, long nowNanos) {
+      long late = Math.max(0, nowNanos - dueNanos);
+      if (firstNanos < 0) firstNanos = nowNanos;
+      count++;
+      sum += late;
+      sumSquares += (double) late * late;
+      if (late > maxDeviation) maxDeviation = late;
+      lastNanos = nowNanos;
+  }
+
+
+  public long getCount() { return count; }
+
+
+  public void reset() {
+      count = 0;
+      sum = 0;
+      sumSquares = 0;
+      maxDeviation = 0;
+      firstNanos = -1;
+  }
+
+
+  // Rate, mean interval (or lateness), standard deviation and worst deviation from the target
+  // (or worst lateness), in ms.
+  public String summary() {
+      if (count == 0) return name + " -";
+      double mean = sum / count;
+      double variance = Math.max(0, sumSquares / count - mean * mean);
+      if (scheduled) {
+          double rate = count > 1 && lastNanos > firstNanos ? (count - 1) * 1_000_000_000.0 / (lastNanos - firstNanos) : 0;
+          return String.format("%s %.1f/s  late mean %.2f ms  jitter %.2f ms  worst %.2f ms",
+                  name, rate, mean / 1_000_000.0, Math.sqrt(variance) / 1_000_000.0, maxDeviation / 1_000_000.0);
+      }
+      return String.format("%s %.1f/s  mean %.2f ms  jitter %.2f ms  worst %.2f ms",
+              name, 1_000_000_000.0 / mean, mean / 1_000_000.0, Math.sqrt(variance) / 1_000_000.0,
+              maxDeviation / 1_000_000.0);
+  }
+}
@@ -0,0 +1,71 @@
+// Log-linear histogram of durations in nanoseconds: exact below 64 ns, then 32 sub-buckets per
+// power of two (about 3% resolution). Recording is an index computation and an array increment.
+class LatencyHistogram {
+  private static final int EXACT_LIMIT = 64;
+  private static final int SUB_BUCKETS = 32;
+  private static final int BUCKET_COUNT = EXACT_LIMIT + (63 - 6) * SUB_BUCKETS;
+
+
+  private final long[] counts = new long[BUCKET_COUNT];
+  private long count;
+  private long sum;
+  private long max;
+
+
+  public void record(long nanos) {
+      if (nanos < 0) nanos = 0;
+      counts[indexOf(nanos)]++;
+      count++;
+      sum += nanos;
+      if (nanos > max) max = nanos;
+  }
+
+
+  public long getCount() { return count; }
+  public long getMax() { return max; }
+
+
+  public double getMean() {
+      return count == 0 ? 0 : (double) sum / count;
+  }
+
+
+  // Upper bound of the bucket holding the given percentile (0-100); exact for the maximum.
+  public long percentile(double percentile) {
+      if (count == 0) return 0;
+      long rank = (long) Math.ceil(percentile / 100.0 * count);
+      if (rank >= count) return max;
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+          seen += counts[i];
+          if (seen >= Math.max(1, rank)) return Math.min(max, upperBound(i));
+      }
+      return max;
+  }
+
+
+  public void reset() {
+      java.util.Arrays.fill(counts, 0);
+      count = 0;
+      sum = 0;
+      max = 0;
+  }
+
+
+  private static int indexOf(long value) {
+      if (value < EXACT_LIMIT) return (int) value;
+      int msb = 63 - Long.numberOfLeadingZeros(value);
+      int shift = msb - 5;
+      int top = (int) (value >>> shift); // 32..63
+      return EXACT_LIMIT + (msb - 6) * SUB_BUCKETS + (top - SUB_BUCKETS);
+  }
+
+
+  private static long upperBound(int index) {
+      if (index < EXACT_LIMIT) return index;
+      int msb = (index - EXACT_LIMIT) / SUB_BUCKETS + 6;
+      int top = (index - EXACT_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+      int shift = msb - 5;
+      return ((long) (top + 1) << shift) - 1;
+  }
+}
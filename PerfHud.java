@@ -0,0 +1,178 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+// Frame, paint-phase, logic-tick and input-latency timings kept in histograms, shown as a toggleable overlay
+// (F3) and optionally written to a CSV file on exit. Nothing is timed while it is neither
+// visible nor recording, so the instrumented paint path costs one branch per phase.
+// Timings arrive from the EDT, the game loop and the input sink, and the CSV is written from a
+// shutdown hook, so the histograms and counters are only touched while holding this object.
+class PerfHud {
+  public static final int FRAME = 0;
+  public static final int PAINT = 1;
+  public static final int BACKGROUND = 2;
+  public static final int STACK = 3;
+  public static final int PIECE = 4;
+  public static final int PREVIEW = 5;
+  public static final int HUD = 6;
+  public static final int TICK = 7;
+  public static final int INPUT = 8;
+  private static final String[] METRIC_NAMES = {
+      "frame", "paint", "background", "stack", "piece", "preview", "hud", "tick", "input"
+  };
+  private static final long REFRESH_NANOS = 500_000_000L;
+  private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+  private static final Color PANEL_COLOR = new Color(0, 0, 0, 180);
+  static final java.awt.Rectangle BOX = new java.awt.Rectangle(4, 4, 440, 16 * (METRIC_NAMES.length + 2) + 8);
+
+
+  // Whole-run histograms for the CSV, and the window shown on screen since the last refresh.
+  private final LatencyHistogram[] totals = new LatencyHistogram[METRIC_NAMES.length];
+  private final LatencyHistogram[] window = new LatencyHistogram[METRIC_NAMES.length];
+  private volatile boolean visible = false;
+  private volatile boolean recording = false;
+  private long lastFrameStart;
+  private long repaintRequests;
+  private long paints;
+  private long windowStart = System.nanoTime();
+  private volatile String[] lines = new String[0];
+
+
+  public PerfHud() {
+      for (int i = 0; i < METRIC_NAMES.length; i++) {
+          totals[i] = new LatencyHistogram();
+          window[i] = new LatencyHistogram();
+      }
+  }
+
+
+  public boolean isVisible() { return visible; }
+
+
+  public synchronized void toggle() {
+      visible = !visible;
+      for (LatencyHistogram h : window) {
+          h.reset();
+      }
+      windowStart = System.nanoTime();
+      lastFrameStart = 0;
+      lines = new String[0];
+  }
+
+
+  // Records for the whole run and writes the histograms to csvPath when the JVM exits.
+  public void dumpOnExit(Path csvPath) {
+      recording = true;
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> writeCsv(csvPath), "perf-csv"));
+  }
+
+
+  public boolean isMeasuring() {
+      return visible || recording;
+  }
+
+
+  // Start of a timed section; 0 when nothing is being measured.
+  public long now() {
+      return isMeasuring() ? System.nanoTime() : 0;
+  }
+
+
+  // Records the time since start under metric and returns the new start for the next phase.
+  public long lap(int metric, long start) {
+      if (start == 0) return 0;
+      long end = System.nanoTime();
+      record(metric, end - start);
+      return end;
+  }
+
+
+  public synchronized void record(int metric, long nanos) {
+      totals[metric].record(nanos);
+      window[metric].record(nanos);
+  }
+
+
+  // Called at the start of every paint; tracks the interval between paints.
+  public synchronized void frameStarted(long start) {
+      paints++;
+      if (start == 0) return;
+      if (lastFrameStart != 0) record(FRAME, start - lastFrameStart);
+      lastFrameStart = start;
+  }
+
+
+  public synchronized void repaintRequested() {
+      repaintRequests++;
+  }
+
+
+  // Draws the overlay; returns true when its text changed and BOX should be repainted.
+  public boolean draw(Graphics2D g) {
+      if (!visible) return false;
+      boolean refreshed = false;
+      synchronized (this) {
+          long nowNanos = System.nanoTime();
+          if (nowNanos - windowStart >= REFRESH_NANOS || lines.length == 0) {
+              refreshLines(nowNanos - windowStart);
+              windowStart = nowNanos;
+              refreshed = true;
+          }
+      }
+      String[] shown = lines;
+      g.setColor(PANEL_COLOR);
+      g.fillRect(BOX.x, BOX.y, BOX.width, BOX.height);
+      g.setFont(FONT);
+      g.setColor(Color.GREEN);
+      for (int i = 0; i < shown.length; i++) {
+          g.drawString(shown[i], BOX.x + 6, BOX.y + 16 + i * 16);
+      }
+      return refreshed;
+  }
+
+
+  private void refreshLines(long windowNanos) {
+      String[] next = new String[METRIC_NAMES.length + 2];
+      next[0] = String.format("%-10s %6s %7s %7s %7s %7s", "ms", "n", "p50", "p99", "p99.9", "max");
+      for (int i = 0; i < METRIC_NAMES.length; i++) {
+          LatencyHistogram h = window[i];
+          next[i + 1] = String.format("%-10s %6d %7.2f %7.2f %7.2f %7.2f", METRIC_NAMES[i], h.getCount(),
+                  millis(h.percentile(50)), millis(h.percentile(99)), millis(h.percentile(99.9)), millis(h.getMax()));
+          h.reset();
+      }
+      long coalesced = Math.max(0, repaintRequests - paints);
+      next[next.length - 1] = String.format("repaints %d requested, %d painted, %d coalesced (%.1f s)",
+              repaintRequests, paints, coalesced, windowNanos / 1e9);
+      repaintRequests = 0;
+      paints = 0;
+      lines = next;
+  }
+
+
+  private synchronized void writeCsv(Path csvPath) {
+      String machine = String.format("%s,%s %s,%d", System.getProperty("java.vm.name") + " " + System.getProperty("java.version"),
+              System.getProperty("os.name"), System.getProperty("os.arch"), Runtime.getRuntime().availableProcessors());
+      try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csvPath, StandardCharsets.UTF_8))) {
+          out.println("jvm,os,cpus,metric,count,mean_ms,p50_ms,p99_ms,p99.9_ms,max_ms");
+          for (int i = 0; i < METRIC_NAMES.length; i++) {
+              LatencyHistogram h = totals[i];
+              out.printf(java.util.Locale.ROOT, "%s,%s,%d,%.4f,%.4f,%.4f,%.4f,%.4f%n", machine, METRIC_NAMES[i], h.getCount(),
+                      h.getMean() / 1e6, millis(h.percentile(50)), millis(h.percentile(99)), millis(h.percentile(99.9)), millis(h.getMax()));
+          }
+          System.out.println("[perf] Wrote " + csvPath);
+      } catch (IOException e) {
+          System.err.println("Error writing perf CSV: " + csvPath + " - " + e.getMessage());
+      }
+  }
+
+
+  private static double millis(long nanos) {
+      return nanos / 1_000_000.0;
+  }
+}
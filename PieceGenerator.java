@@ -0,0 +1,153 @@
+import java.util.Random;
+import java.util.SplittableRandom;
+
+
+// Source of the piece sequence. The engine pulls one type per spawn into its preview queue, so
+// next() must not allocate; reset() starts the same sequence again for a given seed, which is
+// what makes replays and seeded simulations reproducible.
+interface PieceGenerator {
+  String DEFAULT = "uniform";
+
+
+  // Restarts the sequence for a new game.
+  void reset(long seed);
+
+
+  // The next piece type, 1..PieceTable.PIECE_TYPES.
+  int next();
+
+
+  // The spec that named() turns back into an equivalent generator; stored in replays.
+  String spec();
+
+
+  // "uniform", "bag" (7-bag) or "sequence:LETTERS" cycling through pieces given by
+  // PieceTable.TYPE_LETTERS, e.g. "sequence:IOT". Returns a new instance: generators keep state.
+  static PieceGenerator named(String spec) {
+      if (spec.equals("uniform")) return new Uniform();
+      if (spec.equals("bag")) return new Bag();
+      if (spec.startsWith("sequence:")) return new Sequence(spec.substring("sequence:".length()));
+      if (spec.equals(Legacy.SPEC)) return new Legacy();
+      throw new IllegalArgumentException("Unknown piece generator: " + spec);
+  }
+
+
+  // Every type equally likely on every draw.
+  final class Uniform implements PieceGenerator {
+      private SplittableRandom random = new SplittableRandom();
+
+
+      @Override
+      public void reset(long seed) {
+          random = new SplittableRandom(seed);
+      }
+
+
+      @Override
+      public int next() {
+          return random.nextInt(PieceTable.PIECE_TYPES) + 1;
+      }
+
+
+      @Override
+      public String spec() { return "uniform"; }
+  }
+
+
+  // Deals all seven types in a shuffled order, then reshuffles: no droughts, no floods.
+  final class Bag implements PieceGenerator {
+      private SplittableRandom random = new SplittableRandom();
+      private final int[] bag = new int[PieceTable.PIECE_TYPES];
+      private int dealt = bag.length;
+
+
+      @Override
+      public void reset(long seed) {
+          random = new SplittableRandom(seed);
+          for (int i = 0; i < bag.length; i++) {
+              bag[i] = i + 1; // shuffles always start from the same order
+          }
+          dealt = bag.length;
+      }
+
+
+      @Override
+      public int next() {
+          if (dealt == bag.length) {
+              for (int i = bag.length - 1; i > 0; i--) {
+                  int j = random.nextInt(i + 1);
+                  int type = bag[i];
+                  bag[i] = bag[j];
+                  bag[j] = type;
+              }
+              dealt = 0;
+          }
+          return bag[dealt++];
+      }
+
+
+      @Override
+      public String spec() { return "bag"; }
+  }
+
+
+  // A fixed, repeating sequence regardless of the seed; for tests, tutorials and benchmarks.
+  final class Sequence implements PieceGenerator {
+      private final String letters;
+      private final int[] types;
+      private int position;
+
+
+      Sequence(String letters) {
+          if (letters.isEmpty()) throw new IllegalArgumentException("Empty piece sequence");
+          this.letters = letters;
+          this.types = new int[letters.length()];
+          for (int i = 0; i < types.length; i++) {
+              types[i] = PieceTable.typeForLetter(letters.charAt(i));
+              if (types[i] < 0) throw new IllegalArgumentException("Unknown piece letter: " + letters.charAt(i));
+          }
+      }
+
+
+      @Override
+      public void reset(long seed) {
+          position = 0;
+      }
+
+
+      @Override
+      public int next() {
+          int type = types[position];
+          position = (position + 1) % types.length;
+          return type;
+      }
+
+
+      @Override
+      public String spec() { return "sequence:" + letters; }
+  }
+
+
+  // The uniform java.util.Random draw games used before generators were pluggable; only
+  // version 1 replays, which carry no generator spec, are played back with it.
+  final class Legacy implements PieceGenerator {
+      static final String SPEC = "legacy";
+      private final Random random = new Random();
+
+
+      @Override
+      public void reset(long seed) {
+          random.setSeed(seed);
+      }
+
+
+      @Override
+      public int next() {
+          return random.nextInt(PieceTable.PIECE_TYPES) + 1;
+      }
+
+
+      @Override
+      public String spec() { return SPEC; }
+  }
+}
@@ -0,0 +1,134 @@
+// Immutable, JVM-wide table of every piece type and rotation, flattened into int arrays.
+// A shape is addressed by a single index from shapeIndex(type, rotation); per shape it stores
+// row bitmasks (bit c = column c), bounding box size, spawn column and lowest-cell profile.
+// Every piece has four rotation states, defined as in SRS inside the box the piece rotates
+// in; a shape's masks cover only its occupied cells, and boxX/boxY give where those sit
+// inside the rotation box, which is what RotationSystem needs to rotate around a fixed centre.
+final class PieceTable {
+  public static final int PIECE_TYPES = 7;
+  public static final int MAX_ROTATIONS = 4;
+  public static final int MAX_SIZE = 4;
+  public static final int SHAPE_COUNT = PIECE_TYPES * MAX_ROTATIONS;
+  // Letter of each piece type, type n at index n - 1.
+  public static final String TYPE_LETTERS = "TSLJIOZ";
+
+
+  private static final int[] ROTATION_COUNTS = new int[PIECE_TYPES + 1];
+  private static final int[] ROW_MASKS = new int[SHAPE_COUNT * MAX_SIZE];
+  private static final int[] WIDTHS = new int[SHAPE_COUNT];
+  private static final int[] HEIGHTS = new int[SHAPE_COUNT];
+  private static final int[] SPAWN_X = new int[SHAPE_COUNT];
+  // Lowest occupied row of each column of the shape, -1 where the column is empty.
+  private static final int[] BOTTOM_PROFILE = new int[SHAPE_COUNT * MAX_SIZE];
+  // Offset of the shape's occupied cells inside its rotation box.
+  private static final int[] BOX_X = new int[SHAPE_COUNT];
+  private static final int[] BOX_Y = new int[SHAPE_COUNT];
+  // Lowest-rotation shape with the same cells, e.g. an S piece's state 2 maps to state 0.
+  private static final int[] CANONICAL = new int[SHAPE_COUNT];
+
+
+  static {
+      // Piece type n (1..7) is also its color index. States are spawn, R, 2, L (clockwise).
+      String[][] definitions = {
+          { // T
+              ".X.|XXX|...", ".X.|.XX|.X.", "...|XXX|.X.", ".X.|XX.|.X."
+          },
+          { // S
+              ".XX|XX.|...", ".X.|.XX|..X", "...|.XX|XX.", "X..|XX.|.X."
+          },
+          { // L
+              "..X|XXX|...", ".X.|.X.|.XX", "...|XXX|X..", "XX.|.X.|.X."
+          },
+          { // J
+              "X..|XXX|...", ".XX|.X.|.X.", "...|XXX|..X", ".X.|.X.|XX."
+          },
+          { // I
+              "....|XXXX|....|....", "..X.|..X.|..X.|..X.", "....|....|XXXX|....", ".X..|.X..|.X..|.X.."
+          },
+          { // O
+              ".XX.|.XX.", ".XX.|.XX.", ".XX.|.XX.", ".XX.|.XX."
+          },
+          { // Z
+              "XX.|.XX|...", "..X|.XX|.X.", "...|XX.|.XX", ".X.|XX.|X.."
+          }
+      };
+      for (int t = 0; t < PIECE_TYPES; t++) {
+          for (int rot = 0; rot < MAX_ROTATIONS; rot++) {
+              String[] rows = definitions[t][rot].split("\\|");
+              int index = t * MAX_ROTATIONS + rot;
+              int top = rows.length;
+              int bottom = -1;
+              int left = rows[0].length();
+              int right = -1;
+              for (int r = 0; r < rows.length; r++) {
+                  for (int c = 0; c < rows[r].length(); c++) {
+                      if (rows[r].charAt(c) == 'X') {
+                          top = Math.min(top, r);
+                          bottom = Math.max(bottom, r);
+                          left = Math.min(left, c);
+                          right = Math.max(right, c);
+                      }
+                  }
+              }
+              BOX_X[index] = left;
+              BOX_Y[index] = top;
+              WIDTHS[index] = right - left + 1;
+              HEIGHTS[index] = bottom - top + 1;
+              SPAWN_X[index] = GameBoard.COLS / 2 - WIDTHS[index] / 2;
+              for (int c = 0; c < MAX_SIZE; c++) {
+                  BOTTOM_PROFILE[index * MAX_SIZE + c] = -1;
+              }
+              for (int r = 0; r < HEIGHTS[index]; r++) {
+                  for (int c = 0; c < WIDTHS[index]; c++) {
+                      if (rows[top + r].charAt(left + c) == 'X') {
+                          ROW_MASKS[index * MAX_SIZE + r] |= 1 << c;
+                          BOTTOM_PROFILE[index * MAX_SIZE + c] = r;
+                      }
+                  }
+              }
+              CANONICAL[index] = index;
+              for (int earlier = t * MAX_ROTATIONS; earlier < index; earlier++) {
+                  if (sameCells(earlier, index)) {
+                      CANONICAL[index] = CANONICAL[earlier];
+                      break;
+                  }
+              }
+              if (CANONICAL[index] == index) ROTATION_COUNTS[t + 1]++;
+          }
+      }
+  }
+
+
+  private static boolean sameCells(int a, int b) {
+      if (WIDTHS[a] != WIDTHS[b] || HEIGHTS[a] != HEIGHTS[b]) return false;
+      for (int r = 0; r < MAX_SIZE; r++) {
+          if (ROW_MASKS[a * MAX_SIZE + r] != ROW_MASKS[b * MAX_SIZE + r]) return false;
+      }
+      return true;
+  }
+
+
+  private PieceTable() { }
+
+
+  public static boolean isValidType(int type) { return type >= 1 && type <= PIECE_TYPES; }
+  // Number of distinct shapes among the type's four states (O has 1, S, Z and I have 2).
+  public static int rotationCount(int type) { return ROTATION_COUNTS[type]; }
+  public static int shapeIndex(int type, int rotation) { return (type - 1) * MAX_ROTATIONS + rotation; }
+  public static int typeOf(int shape) { return shape / MAX_ROTATIONS + 1; }
+  // Piece type for a letter of TYPE_LETTERS (either case), or -1.
+  public static int typeForLetter(char letter) {
+      int index = TYPE_LETTERS.indexOf(Character.toUpperCase(letter));
+      return index < 0 ? -1 : index + 1;
+  }
+
+
+  public static int rowMask(int shape, int row) { return ROW_MASKS[shape * MAX_SIZE + row]; }
+  public static int width(int shape) { return WIDTHS[shape]; }
+  public static int height(int shape) { return HEIGHTS[shape]; }
+  public static int spawnX(int shape) { return SPAWN_X[shape]; }
+  public static int bottom(int shape, int col) { return BOTTOM_PROFILE[shape * MAX_SIZE + col]; }
+  public static int boxX(int shape) { return BOX_X[shape]; }
+  public static int boxY(int shape) { return BOX_Y[shape]; }
+  public static int canonicalShape(int shape) { return CANONICAL[shape]; }
+}
@@ -0,0 +1,54 @@
+// Scores a board after a placement: a weighted sum of aggregate column height, lines cleared,
+// holes (empty cells with a block somewhere above them) and bumpiness (height differences
+// between neighbouring columns). Higher is better.
+final class PlacementHeuristic {
+  // Published weights from Yiyuan Lee's "Tetris AI - The (Near) Perfect Bot" (2013), copied in
+  // as-is and not re-tuned for this game; lines are the only reward.
+  public static final PlacementHeuristic DEFAULT = new PlacementHeuristic(-0.510066, 0.760666, -0.35663, -0.184483);
+
+
+  private final double heightWeight;
+  private final double linesWeight;
+  private final double holesWeight;
+  private final double bumpinessWeight;
+
+
+  public PlacementHeuristic(double heightWeight, double linesWeight, double holesWeight, double bumpinessWeight) {
+      this.heightWeight = heightWeight;
+      this.linesWeight = linesWeight;
+      this.holesWeight = holesWeight;
+      this.bumpinessWeight = bumpinessWeight;
+  }
+
+
+  // "height,lines,holes,bumpiness", e.g. from a command-line option.
+  public static PlacementHeuristic parse(String weights) {
+      String[] parts = weights.split(",");
+      if (parts.length != 4) throw new IllegalArgumentException("Expected 4 weights: " + weights);
+      return new PlacementHeuristic(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]),
+              Double.parseDouble(parts[2]), Double.parseDouble(parts[3]));
+  }
+
+
+  public double evaluate(GameBoard board, int linesCleared) {
+      int aggregateHeight = 0;
+      int bumpiness = 0;
+      int previousHeight = board.getColumnHeight(0);
+      for (int c = 0; c < GameBoard.COLS; c++) {
+          int height = board.getColumnHeight(c);
+          aggregateHeight += height;
+          bumpiness += Math.abs(height - previousHeight);
+          previousHeight = height;
+      }
+      // A cell is a hole when its column already has a block in some row above it
+      int holes = 0;
+      int covered = 0;
+      for (int r = 0; r < GameBoard.ROWS; r++) {
+          int row = board.getRowBits(r);
+          holes += Integer.bitCount(covered & ~row);
+          covered |= row;
+      }
+      return heightWeight * aggregateHeight + linesWeight * linesCleared
+              + holesWeight * holes + bumpinessWeight * bumpiness;
+  }
+}
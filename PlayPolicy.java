@@ -0,0 +1,53 @@
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+
+// Decides how to play the falling piece. Implementations keep per-game scratch state, so
+// simulations create one per worker thread.
+interface PlayPolicy {
+  // Plays the falling piece through target, normally ending with a hard drop; false to give up.
+  boolean play(GameEngine engine, InputController.ActionTarget target);
+
+
+  // Called before each game so randomized policies can be reproduced from the game's seed.
+  default void newGame(long seed) { }
+
+
+  // "bot", "bot:DEPTH", "random" or "drop"; returns a factory for per-thread instances.
+  static Supplier<PlayPolicy> named(String name) {
+      if (name.equals("bot")) return AutoPlayer::new;
+      if (name.startsWith("bot:")) {
+          int depth = Integer.parseInt(name.substring("bot:".length()));
+          return () -> new AutoPlayer(PlacementHeuristic.DEFAULT, depth, false);
+      }
+      if (name.equals("random")) return RandomPolicy::new;
+      if (name.equals("drop")) return () -> (engine, target) -> target.apply(GameEngine.Action.HARD_DROP);
+      throw new IllegalArgumentException("Unknown policy: " + name);
+  }
+
+
+  // Random rotation and column: cheap games for soak-testing the rules themselves.
+  final class RandomPolicy implements PlayPolicy {
+      private SplittableRandom random = new SplittableRandom();
+
+
+      @Override
+      public void newGame(long seed) {
+          random = new SplittableRandom(seed);
+      }
+
+
+      @Override
+      public boolean play(GameEngine engine, InputController.ActionTarget target) {
+          GameEngine.Action turn = random.nextBoolean() ? GameEngine.Action.ROTATE : GameEngine.Action.ROTATE_CCW;
+          for (int turns = random.nextInt(PieceTable.MAX_ROTATIONS); turns > 0; turns--) {
+              target.apply(turn);
+          }
+          GameEngine.Action shift = random.nextBoolean() ? GameEngine.Action.MOVE_LEFT : GameEngine.Action.MOVE_RIGHT;
+          for (int steps = random.nextInt(GameBoard.COLS / 2 + 1); steps > 0; steps--) {
+              if (!target.apply(shift)) break;
+          }
+          return target.apply(GameEngine.Action.HARD_DROP);
+      }
+  }
+}
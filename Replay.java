@@ -0,0 +1,226 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+// A recorded game: the engine seed plus every event that changed it, in order. Gravity ticks
+// are events too, so an action's tick stamp is the number of gravity events before it. Each
+// event also keeps the milliseconds since the previous one for real-time playback.
+//
+// File layout: "RBR" + version byte, seed (long), gravity delay in ms (int), piece generator
+// spec (UTF), rotation system spec (UTF), then one varint per event holding
+// (millisDelta << 3 | code), then END, the final score (int) and GameEngine.stateHash() (long).
+// Older files are still read: versions 1 and 2 have no rotation spec (they used
+// RotationSystem.CLASSIC) and stored gravity as code 5, version 1 has no generator spec either
+// (PieceGenerator.Legacy).
+final class Replay {
+  public static final int GRAVITY = 6;
+  private static final int OLD_GRAVITY = 5;
+  private static final int END = 7;
+  private static final int CODE_BITS = 3;
+  private static final byte[] MAGIC = { 'R', 'B', 'R' };
+  private static final int VERSION = 3;
+  private static final GameEngine.Action[] ACTIONS = GameEngine.Action.values();
+
+
+  private final long seed;
+  private final int gravityDelayMillis;
+  private final String generatorSpec;
+  private final String rotationSpec;
+  private final byte[] codes;
+  private final int[] delays;
+  private final int length;
+  private final int finalScore;
+  private final long finalHash;
+
+
+  private Replay(long seed, int gravityDelayMillis, String generatorSpec, String rotationSpec, byte[] codes,
+                 int[] delays, int length, int finalScore, long finalHash) {
+      this.seed = seed;
+      this.gravityDelayMillis = gravityDelayMillis;
+      this.generatorSpec = generatorSpec;
+      this.rotationSpec = rotationSpec;
+      this.codes = codes;
+      this.delays = delays;
+      this.length = length;
+      this.finalScore = finalScore;
+      this.finalHash = finalHash;
+  }
+
+
+  public long getSeed() { return seed; }
+  public int getGravityDelayMillis() { return gravityDelayMillis; }
+  public String getGeneratorSpec() { return generatorSpec; }
+  public String getRotationSpec() { return rotationSpec; }
+  public int length() { return length; }
+  public int getFinalScore() { return finalScore; }
+  public long getFinalHash() { return finalHash; }
+
+
+  // Event code: an Action ordinal, or GRAVITY.
+  public int code(int index) { return codes[index]; }
+  public int delayMillis(int index) { return delays[index]; }
+
+
+  public static GameEngine.Action action(int code) {
+      return ACTIONS[code];
+  }
+
+
+  // Starts the recorded game on engine: same generator, rotation system and seed.
+  public void start(GameEngine engine) {
+      engine.setGenerator(PieceGenerator.named(generatorSpec));
+      engine.setRotationSystem(RotationSystem.named(rotationSpec));
+      engine.newGame(seed);
+  }
+
+
+  // Applies event index to engine; the event stream is the whole input, so this is deterministic.
+  public void apply(int index, GameEngine engine) {
+      int code = codes[index];
+      if (code == GRAVITY) {
+          engine.tick();
+      } else {
+          engine.step(ACTIONS[code]);
+      }
+  }
+
+
+  public void write(Path path) throws IOException {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+          out.write(MAGIC);
+          out.write(VERSION);
+          out.writeLong(seed);
+          out.writeInt(gravityDelayMillis);
+          out.writeUTF(generatorSpec);
+          out.writeUTF(rotationSpec);
+          for (int i = 0; i < length; i++) {
+              writeVarint(out, ((long) delays[i] << CODE_BITS) | codes[i]);
+          }
+          writeVarint(out, END);
+          out.writeInt(finalScore);
+          out.writeLong(finalHash);
+      }
+  }
+
+
+  public static Replay read(Path path) throws IOException {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+          byte[] magic = new byte[MAGIC.length];
+          in.readFully(magic);
+          if (!java.util.Arrays.equals(magic, MAGIC)) {
+              throw new IOException("Not a replay file: " + path);
+          }
+          int version = in.read();
+          if (version < 1 || version > VERSION) {
+              throw new IOException("Unsupported replay version " + version + ": " + path);
+          }
+          long seed = in.readLong();
+          int gravityDelayMillis = in.readInt();
+          String generatorSpec = version >= 2 ? in.readUTF() : PieceGenerator.Legacy.SPEC;
+          String rotationSpec = version >= 3 ? in.readUTF() : RotationSystem.CLASSIC.spec();
+          Recorder recorder = new Recorder();
+          recorder.begin(seed, gravityDelayMillis, generatorSpec, rotationSpec);
+          while (true) {
+              long value = readVarint(in);
+              int code = (int) (value & ((1 << CODE_BITS) - 1));
+              if (code == END) break;
+              if (version < 3 && code == OLD_GRAVITY) code = GRAVITY;
+              if (code > GRAVITY) throw new IOException("Corrupt replay event " + code + " in " + path);
+              recorder.append(code, (int) Math.min(Integer.MAX_VALUE, value >>> CODE_BITS));
+          }
+          int score = in.readInt();
+          long hash = in.readLong();
+          return recorder.finish(score, hash);
+      }
+  }
+
+
+  private static void writeVarint(OutputStream out, long value) throws IOException {
+      while ((value & ~0x7FL) != 0) {
+          out.write((int) ((value & 0x7F) | 0x80));
+          value >>>= 7;
+      }
+      out.write((int) value);
+  }
+
+
+  private static long readVarint(InputStream in) throws IOException {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+          int b = in.read();
+          if (b < 0) throw new EOFException("Truncated replay");
+          value |= (long) (b & 0x7F) << shift;
+          if ((b & 0x80) == 0) return value;
+      }
+      throw new IOException("Corrupt replay varint");
+  }
+
+
+  // Collects events as a game is played; finish() seals them into a Replay.
+  static final class Recorder {
+      private long seed;
+      private int gravityDelayMillis;
+      private String generatorSpec;
+      private String rotationSpec;
+      private byte[] codes = new byte[1024];
+      private int[] delays = new int[1024];
+      private int length;
+      private long lastEventNanos;
+      private boolean recording;
+
+
+      public void begin(long seed, int gravityDelayMillis, String generatorSpec, String rotationSpec) {
+          this.seed = seed;
+          this.gravityDelayMillis = gravityDelayMillis;
+          this.generatorSpec = generatorSpec;
+          this.rotationSpec = rotationSpec;
+          this.length = 0;
+          this.lastEventNanos = System.nanoTime();
+          this.recording = true;
+      }
+
+
+      public boolean isRecording() { return recording; }
+
+
+      // code is an Action ordinal or GRAVITY.
+      public void record(int code) {
+          if (!recording) return;
+          long now = System.nanoTime();
+          append(code, (int) Math.min(Integer.MAX_VALUE, (now - lastEventNanos) / 1_000_000L));
+          // Keep the sub-millisecond remainder so delays do not drift over a long game
+          lastEventNanos = now - (now - lastEventNanos) % 1_000_000L;
+      }
+
+
+      private void append(int code, int delayMillis) {
+          if (length == codes.length) {
+              codes = java.util.Arrays.copyOf(codes, length * 2);
+              delays = java.util.Arrays.copyOf(delays, length * 2);
+          }
+          codes[length] = (byte) code;
+          delays[length] = delayMillis;
+          length++;
+      }
+
+
+      public Replay finish(GameEngine engine) {
+          return finish(engine.getScore(), engine.stateHash());
+      }
+
+
+      private Replay finish(int score, long hash) {
+          recording = false;
+          return new Replay(seed, gravityDelayMillis, generatorSpec, rotationSpec, java.util.Arrays.copyOf(codes, length),
+                  java.util.Arrays.copyOf(delays, length), length, score, hash);
+      }
+  }
+}
@@ -0,0 +1,75 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+
+// Re-executes replays headless at full speed and checks the final score and state hash.
+// Usage: java -cp target/classes ReplayPlayer [--repeat=N] FILE...
+// Exits with status 1 if any replay does not reproduce, so it can gate regression runs; with
+// --repeat it doubles as an engine benchmark on real move streams.
+public class ReplayPlayer {
+  public static final class Result {
+      public final int score;
+      public final long hash;
+      public final boolean matches;
+
+
+      Result(int score, long hash, boolean matches) {
+          this.score = score;
+          this.hash = hash;
+          this.matches = matches;
+      }
+  }
+
+
+  public static Result playHeadless(Replay replay) {
+      return playHeadless(replay, new GameEngine(replay.getSeed()));
+  }
+
+
+  // Reuses engine, so repeated runs measure the engine rather than allocation.
+  public static Result playHeadless(Replay replay, GameEngine engine) {
+      replay.start(engine);
+      DamageTracker damage = engine.getDamage();
+      for (int i = 0; i < replay.length(); i++) {
+          replay.apply(i, engine);
+          damage.reset();
+      }
+      int score = engine.getScore();
+      long hash = engine.stateHash();
+      return new Result(score, hash, score == replay.getFinalScore() && hash == replay.getFinalHash());
+  }
+
+
+  public static void main(String[] args) {
+      int repeat = 1;
+      boolean allMatch = true;
+      GameEngine engine = new GameEngine();
+      for (String arg : args) {
+          if (arg.startsWith("--repeat=")) {
+              repeat = Math.max(1, Integer.parseInt(arg.substring("--repeat=".length())));
+              continue;
+          }
+          Path path = Paths.get(arg);
+          Replay replay;
+          try {
+              replay = Replay.read(path);
+          } catch (IOException e) {
+              System.err.println("Error loading replay: " + path + " - " + e.getMessage());
+              allMatch = false;
+              continue;
+          }
+          Result result = null;
+          long start = System.nanoTime();
+          for (int i = 0; i < repeat; i++) {
+              result = playHeadless(replay, engine);
+          }
+          double seconds = (System.nanoTime() - start) / 1e9;
+          System.out.printf("[replay] %s  %d events  score %d  hash %016x  %s  %.0f events/s%n",
+                  path, replay.length(), result.score, result.hash, result.matches ? "OK" : "MISMATCH",
+                  (double) replay.length() * repeat / seconds);
+          allMatch &= result.matches;
+      }
+      System.exit(allMatch ? 0 : 1);
+  }
+}
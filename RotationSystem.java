@@ -0,0 +1,126 @@
+// Table-driven rotation. A rotation tries up to MAX_KICKS offsets in order and takes the first
+// where the rotated shape fits (GameBoard.canPlace, a few row-mask tests). Each offset already
+// includes the shift between the two shapes' positions in their rotation box, so a rotation is
+// only table lookups and collision tests.
+//
+// SRS rotates every piece about the centre of its box and uses the standard wall kicks (one
+// table for J, L, S, T and Z, one for I, none for O). CLASSIC is the original rule: the shape
+// turns about its top-left corner and fails if it does not fit there; version 1 and 2 replays
+// were recorded with it. Under SRS a piece spawns with its whole box inside the field, so the
+// first rotation already turns about the box centre; CLASSIC keeps the shape on the top row.
+final class RotationSystem {
+  public static final int CLOCKWISE = 1;
+  public static final int COUNTER_CLOCKWISE = -1;
+  public static final int MAX_KICKS = 5;
+
+
+  // SRS kick offsets (x right, y up, as usually published) for the transitions 0->R, R->2,
+  // 2->L and L->0; the counter-clockwise transition back is the same list negated.
+  private static final int[][][] JLSTZ_KICKS = {
+      { {0, 0}, {-1, 0}, {-1, 1}, {0, -2}, {-1, -2} },
+      { {0, 0}, {1, 0}, {1, -1}, {0, 2}, {1, 2} },
+      { {0, 0}, {1, 0}, {1, 1}, {0, -2}, {1, -2} },
+      { {0, 0}, {-1, 0}, {-1, -1}, {0, 2}, {-1, 2} }
+  };
+  private static final int[][][] I_KICKS = {
+      { {0, 0}, {-2, 0}, {1, 0}, {-2, -1}, {1, 2} },
+      { {0, 0}, {-1, 0}, {2, 0}, {-1, 2}, {2, -1} },
+      { {0, 0}, {2, 0}, {-1, 0}, {2, 1}, {-1, -2} },
+      { {0, 0}, {1, 0}, {-2, 0}, {1, -2}, {-2, 1} }
+  };
+  private static final int I_TYPE = PieceTable.typeForLetter('I');
+  private static final int O_TYPE = PieceTable.typeForLetter('O');
+
+
+  public static final RotationSystem SRS = new RotationSystem("srs", true);
+  public static final RotationSystem CLASSIC = new RotationSystem("classic", false);
+
+
+  private final String spec;
+  private final boolean srs;
+  // Indexed by transition(type, from, direction) * MAX_KICKS + kick; offsets in board cells
+  // (y down) applied to the shape's top-left position.
+  private final int[] kickX = new int[(PieceTable.PIECE_TYPES + 1) * PieceTable.MAX_ROTATIONS * 2 * MAX_KICKS];
+  private final int[] kickY = new int[kickX.length];
+  private final int[] kickCounts = new int[kickX.length / MAX_KICKS];
+
+
+  private RotationSystem(String spec, boolean srs) {
+      this.spec = spec;
+      this.srs = srs;
+      for (int type = 1; type <= PieceTable.PIECE_TYPES; type++) {
+          for (int from = 0; from < PieceTable.MAX_ROTATIONS; from++) {
+              for (int direction = CLOCKWISE; direction >= COUNTER_CLOCKWISE; direction -= 2) {
+                  int to = turn(from, direction);
+                  int transition = transition(type, from, direction);
+                  int fromShape = PieceTable.shapeIndex(type, from);
+                  int toShape = PieceTable.shapeIndex(type, to);
+                  if (!srs) {
+                      kickCounts[transition] = 1; // turn in place, offset (0, 0)
+                      continue;
+                  }
+                  // Keep the rotation box still: move by the difference of the box offsets
+                  int boxDx = PieceTable.boxX(toShape) - PieceTable.boxX(fromShape);
+                  int boxDy = PieceTable.boxY(toShape) - PieceTable.boxY(fromShape);
+                  int[][] kicks = type == O_TYPE ? new int[][] { {0, 0} }
+                          : direction == CLOCKWISE ? kickTable(type)[from] : kickTable(type)[to];
+                  int sign = direction == CLOCKWISE ? 1 : -1;
+                  for (int k = 0; k < kicks.length; k++) {
+                      kickX[transition * MAX_KICKS + k] = boxDx + sign * kicks[k][0];
+                      kickY[transition * MAX_KICKS + k] = boxDy - sign * kicks[k][1];
+                  }
+                  kickCounts[transition] = kicks.length;
+              }
+          }
+      }
+  }
+
+
+  // "srs" or "classic".
+  public static RotationSystem named(String spec) {
+      if (spec.equals(SRS.spec)) return SRS;
+      if (spec.equals(CLASSIC.spec)) return CLASSIC;
+      throw new IllegalArgumentException("Unknown rotation system: " + spec);
+  }
+
+
+  public String spec() { return spec; }
+
+
+  // Row a new piece spawns at, for the shape of its spawn state.
+  public int spawnY(int shape) { return srs ? PieceTable.boxY(shape) : 0; }
+
+
+  public static int turn(int rotation, int direction) {
+      return (rotation + direction) & (PieceTable.MAX_ROTATIONS - 1);
+  }
+
+
+  // Rotates a piece of type at (x, y) in the given direction on board. Returns the new
+  // position packed as (y << 8 | x), see x() and y(), or -1 if no kick fits.
+  public int rotate(GameBoard board, int type, int rotation, int x, int y, int direction) {
+      int transition = transition(type, rotation, direction);
+      int shape = PieceTable.shapeIndex(type, turn(rotation, direction));
+      int base = transition * MAX_KICKS;
+      for (int k = 0; k < kickCounts[transition]; k++) {
+          int kickedX = x + kickX[base + k];
+          int kickedY = y + kickY[base + k];
+          if (board.canPlace(shape, kickedX, kickedY)) return kickedY << 8 | kickedX;
+      }
+      return -1;
+  }
+
+
+  public static int x(int position) { return position & 0xFF; }
+  public static int y(int position) { return position >> 8; }
+
+
+  private static int transition(int type, int from, int direction) {
+      return (type * PieceTable.MAX_ROTATIONS + from) * 2 + (direction == CLOCKWISE ? 0 : 1);
+  }
+
+
+  private static int[][][] kickTable(int type) {
+      return type == I_TYPE ? I_KICKS : JLSTZ_KICKS;
+  }
+}
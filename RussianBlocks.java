@@ -2,6 +2,9 @@ import javax.swing.JFrame;
 
 
 public class RussianBlocks {
+   private static final int DEFAULT_FPS_CAP = 120;
+
+
    public static void main(String[] args) {
        // get the file paths for each png
        String backgroundPath = "./res/bg/mainmenu.png";
@@ -13,8 +16,10 @@ public class RussianBlocks {
 
 
        frame.setContentPane(logicController.getDrawingPanel());
+       // Resizable: the renderer scales its layout to the window and letterboxes the rest
        frame.setSize(720, 720);
-       frame.setResizable(false);
+       frame.setMinimumSize(new java.awt.Dimension(360, 360));
+       frame.setResizable(true);
        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
        frame.setLocationRelativeTo(null);
        frame.setVisible(true);
@@ -27,6 +32,123 @@ public class RussianBlocks {
            }
        });
        logicController.getDrawingPanel().requestFocusInWindow();
+
+
+       // --loop swaps the Swing Timers for a dedicated game-loop thread with active rendering;
+       // --fps=N caps its frame rate (0 = uncapped) and --vsync paces it to the display refresh rate.
+       // --perf-csv=FILE records frame, paint and tick timings and writes them to FILE on exit.
+       // --das=MS, --arr=MS and --soft-drop=MS set the held-key repeat timings.
+       // --record=DIR saves a replay of every game into DIR; --replay=FILE plays one back on screen.
+       // --bot lets the placement-search bot play; --bot-depth=N, --bot-parallel and
+       // --bot-weights=height,lines,holes,bumpiness tune its search
+       // --generator=uniform|bag|sequence:LETTERS picks how pieces are dealt; --preview=N shows
+       // the next N pieces (up to GameEngine.MAX_PREVIEW); --rotation=srs|classic picks wall-kick
+       // rotation (the default) or the original turn-in-place rule
+       // --scores=DIR keeps the high-score log somewhere other than ScoreStore.DEFAULT_DIRECTORY;
+       // --no-scores keeps no score history at all
+       boolean useGameLoop = false;
+       boolean vsync = false;
+       int fpsCap = DEFAULT_FPS_CAP;
+       int das = InputController.DEFAULT_DAS_MILLIS;
+       int arr = InputController.DEFAULT_ARR_MILLIS;
+       int softDrop = InputController.DEFAULT_SOFT_DROP_MILLIS;
+       String replayPath = null;
+       boolean useBot = false;
+       boolean botParallel = false;
+       int botDepth = AutoPlayer.DEFAULT_DEPTH;
+       PlacementHeuristic botWeights = PlacementHeuristic.DEFAULT;
+       java.nio.file.Path scoreDirectory = ScoreStore.DEFAULT_DIRECTORY;
+       for (String arg : args) {
+           if (arg.equals("--loop")) {
+               useGameLoop = true;
+           } else if (arg.equals("--vsync")) {
+               vsync = true;
+           } else if (arg.startsWith("--fps=")) {
+               fpsCap = intOption(arg, fpsCap);
+           } else if (arg.startsWith("--das=")) {
+               das = intOption(arg, das);
+           } else if (arg.startsWith("--arr=")) {
+               arr = intOption(arg, arr);
+           } else if (arg.startsWith("--soft-drop=")) {
+               softDrop = intOption(arg, softDrop);
+           } else if (arg.equals("--bot")) {
+               useBot = true;
+           } else if (arg.equals("--bot-parallel")) {
+               botParallel = true;
+           } else if (arg.startsWith("--bot-depth=")) {
+               botDepth = intOption(arg, botDepth);
+           } else if (arg.startsWith("--bot-weights=")) {
+               try {
+                   botWeights = PlacementHeuristic.parse(arg.substring("--bot-weights=".length()));
+               } catch (IllegalArgumentException e) {
+                   System.err.println("Warning: Ignoring invalid option: " + arg);
+               }
+           } else if (arg.startsWith("--record=")) {
+               logicController.setReplayDirectory(java.nio.file.Paths.get(arg.substring("--record=".length())));
+           } else if (arg.startsWith("--scores=")) {
+               scoreDirectory = java.nio.file.Paths.get(arg.substring("--scores=".length()));
+           } else if (arg.equals("--no-scores")) {
+               scoreDirectory = null;
+           } else if (arg.startsWith("--replay=")) {
+               replayPath = arg.substring("--replay=".length());
+           } else if (arg.startsWith("--generator=")) {
+               try {
+                   logicController.setPieceGenerator(PieceGenerator.named(arg.substring("--generator=".length())));
+               } catch (IllegalArgumentException e) {
+                   System.err.println("Warning: Ignoring invalid option: " + arg);
+               }
+           } else if (arg.startsWith("--rotation=")) {
+               try {
+                   logicController.setRotationSystem(RotationSystem.named(arg.substring("--rotation=".length())));
+               } catch (IllegalArgumentException e) {
+                   System.err.println("Warning: Ignoring invalid option: " + arg);
+               }
+           } else if (arg.startsWith("--preview=")) {
+               logicController.getEngine().setPreviewLength(intOption(arg, 1));
+           } else if (arg.startsWith("--perf-csv=")) {
+               logicController.getDrawingPanel().getPerfHud()
+                       .dumpOnExit(java.nio.file.Paths.get(arg.substring("--perf-csv=".length())));
+           }
+       }
+       logicController.getInput().setTiming(das, arr, softDrop);
+       if (scoreDirectory != null) {
+           try {
+               logicController.setScoreStore(ScoreStore.open(scoreDirectory));
+           } catch (java.io.IOException e) {
+               System.err.println("Error opening score store: " + scoreDirectory + " - " + e.getMessage());
+           }
+       }
+       if (useBot) {
+           logicController.setBot(new AutoPlayer(botWeights, botDepth, botParallel));
+       }
+       if (useGameLoop) {
+           GameLoop gameLoop = new GameLoop(logicController, frame, vsync ? GameLoop.refreshRate(frame) : fpsCap);
+           gameLoop.start();
+           frame.addWindowListener(new java.awt.event.WindowAdapter() {
+               @Override
+               public void windowClosing(java.awt.event.WindowEvent e) {
+                   gameLoop.stop();
+               }
+           });
+       }
+       if (replayPath != null) {
+           try {
+               logicController.playReplay(Replay.read(java.nio.file.Paths.get(replayPath)));
+           } catch (java.io.IOException e) {
+               System.err.println("Error loading replay: " + replayPath + " - " + e.getMessage());
+           }
+       }
+   }
+
+
+   // Value of a --name=N option, or fallback if N is not a number.
+   private static int intOption(String arg, int fallback) {
+       try {
+           return Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+       } catch (NumberFormatException e) {
+           System.err.println("Warning: Ignoring invalid option: " + arg);
+           return fallback;
+       }
    }
 }
 
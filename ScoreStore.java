@@ -0,0 +1,299 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+
+// Local high scores and game history. Every finished game is appended to games.log; each
+// difficulty has a small memory-mapped index of its TOP_N best games from each source, so a
+// game over reads and updates a few hundred bytes no matter how long the history is. Sources are
+// ranked apart: a player's game is placed among the player's games only, never among
+// self-play imports.
+//
+// games.log: "RBS" + version byte, then fixed-size records: time in ms (long), seed (long),
+// score (int), pieces (int), difficulty (byte), source (byte). The log is the source of truth.
+// top-DIFFICULTY.idx: "RBI" + version byte, log length covered (long), then per source: entry
+// count (int), games from that source on this difficulty (long) and TOP_N entries of score (int)
+// and record number (long), best first, older first among equal scores.
+//
+// Games are appended to the log first and indexed after, and an index only marks them covered
+// once they are all in it. An index that is behind the log (the process died in between) may
+// already hold some of the uncovered games, so it is rebuilt from the whole log when the store
+// opens, as is a missing or damaged one. Bulk imports append and index a large chunk at a time,
+// so an import that dies between chunks leaves nothing to rebuild.
+final class ScoreStore implements AutoCloseable {
+  public static final int TOP_N = 100;
+  public static final int SOURCE_PLAYER = 0;
+  public static final int SOURCE_BOT = 1;
+  public static final int SOURCE_SELF_PLAY = 2;
+  public static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("user.home"), ".russianblocks", "scores");
+  private static final String LOG = "[scores] ";
+  private static final int SOURCES = 3;
+  private static final int VERSION = 1;
+  // Version 1 indexes ranked all sources together; they are rebuilt from the log
+  private static final int INDEX_VERSION = 2;
+  private static final int LOG_HEADER = 4;
+  private static final int RECORD_SIZE = 8 + 8 + 4 + 4 + 1 + 1;
+  private static final int INDEX_HEADER = 4 + 8;
+  private static final int ENTRY_SIZE = 4 + 8;
+  private static final int COVERED = 4;
+  // Offsets inside a source's section, see section()
+  private static final int COUNT = 0;
+  private static final int GAMES = 4;
+  private static final int ENTRIES = 4 + 8;
+  private static final int SECTION_SIZE = ENTRIES + TOP_N * ENTRY_SIZE;
+  private static final int INDEX_SIZE = INDEX_HEADER + SOURCES * SECTION_SIZE;
+  // Records per write and per read when importing or catching up
+  private static final int CHUNK_RECORDS = 1 << 14;
+
+
+  private final FileChannel log;
+  private final MappedByteBuffer[] indexes = new MappedByteBuffer[GameEngine.DIFFICULTY_NAMES.length];
+  private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+  private long logEnd;
+
+
+  private ScoreStore(FileChannel log, long logEnd) {
+      this.log = log;
+      this.logEnd = logEnd;
+  }
+
+
+  public static ScoreStore open(Path directory) throws IOException {
+      Files.createDirectories(directory);
+      FileChannel log = FileChannel.open(directory.resolve("games.log"),
+              StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      try {
+          ScoreStore store = new ScoreStore(log, openLog(log));
+          boolean rebuild = false;
+          for (int d = 0; d < store.indexes.length; d++) {
+              store.indexes[d] = openIndex(directory.resolve("top-" + GameEngine.DIFFICULTY_NAMES[d] + ".idx"), store.logEnd);
+              if (store.indexes[d].getLong(COVERED) < store.logEnd) {
+                  reset(store.indexes[d]);
+                  rebuild = true;
+              }
+          }
+          if (rebuild) {
+              System.out.println(LOG + "Indexing " + (store.logEnd - LOG_HEADER) / RECORD_SIZE + " games");
+              store.catchUp(LOG_HEADER);
+          }
+          return store;
+      } catch (IOException | RuntimeException e) {
+          log.close();
+          throw e;
+      }
+  }
+
+
+  // Validates the header, writing it to a new log, and drops a torn last record; returns the end.
+  private static long openLog(FileChannel log) throws IOException {
+      ByteBuffer header = ByteBuffer.allocate(LOG_HEADER);
+      if (log.size() == 0) {
+          header.put((byte) 'R').put((byte) 'B').put((byte) 'S').put((byte) VERSION).flip();
+          while (header.hasRemaining()) log.write(header, LOG_HEADER - header.remaining());
+          return LOG_HEADER;
+      }
+      while (header.hasRemaining() && log.read(header, header.position()) >= 0) { }
+      if (header.position() < LOG_HEADER || header.get(0) != 'R' || header.get(1) != 'B' || header.get(2) != 'S') {
+          throw new IOException("Not a score log");
+      }
+      if (header.get(3) != VERSION) throw new IOException("Unsupported score log version " + header.get(3));
+      long end = LOG_HEADER + (log.size() - LOG_HEADER) / RECORD_SIZE * RECORD_SIZE;
+      if (end != log.size()) log.truncate(end);
+      return end;
+  }
+
+
+  // Maps an index, resetting it when it is new, damaged or claims more of the log than exists.
+  private static MappedByteBuffer openIndex(Path path, long logEnd) throws IOException {
+      try (FileChannel channel = FileChannel.open(path,
+              StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+          boolean fresh = channel.size() != INDEX_SIZE;
+          MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_SIZE);
+          boolean damaged = fresh || index.get(0) != 'R' || index.get(1) != 'B' || index.get(2) != 'I'
+                  || index.get(3) != INDEX_VERSION
+                  || index.getLong(COVERED) < LOG_HEADER || index.getLong(COVERED) > logEnd;
+          for (int source = 0; source < SOURCES && !damaged; source++) {
+              int count = index.getInt(section(source) + COUNT);
+              damaged = count < 0 || count > TOP_N;
+          }
+          if (damaged) reset(index);
+          return index; // the mapping stays valid after the channel closes
+      }
+  }
+
+
+  // Empties an index so it covers none of the log.
+  private static void reset(MappedByteBuffer index) {
+      index.put(0, (byte) 'R').put(1, (byte) 'B').put(2, (byte) 'I').put(3, (byte) INDEX_VERSION);
+      index.putLong(COVERED, LOG_HEADER);
+      for (int source = 0; source < SOURCES; source++) {
+          index.putInt(section(source) + COUNT, 0);
+          index.putLong(section(source) + GAMES, 0);
+      }
+  }
+
+
+  private static int section(int source) { return INDEX_HEADER + source * SECTION_SIZE; }
+
+
+  // The outcome of recording one game, for the game over screen. The texts are built once here
+  // so painting the screen does not format strings every frame.
+  static final class Result {
+      // 1-based place among this difficulty's games from the same source, or 0 when outside the
+      // top TOP_N; games counts only that source too
+      public final int rank;
+      public final long games;
+      public final int best;
+      public final boolean newBest;
+      private final String rankText;
+      private final String bestText;
+
+
+      Result(int rank, long games, int best, boolean newBest) {
+          this.rank = rank;
+          this.games = games;
+          this.best = best;
+          this.newBest = newBest;
+          this.rankText = (rank > 0 ? "RANK " + rank : "RANK >" + TOP_N) + " OF " + games;
+          this.bestText = newBest ? "NEW BEST!" : best >= 0 ? "BEST " + best : "";
+      }
+
+
+      public String rankText() { return rankText; }
+      public String bestText() { return bestText; }
+  }
+
+
+  // Appends one finished game and returns its rank and the player's best on that difficulty.
+  public Result record(int difficulty, int score, int pieces, long seed, int source) throws IOException {
+      MappedByteBuffer index = indexes[difficulty];
+      int previousBest = getBest(difficulty);
+      record.clear();
+      putRecord(record, System.currentTimeMillis(), seed, score, pieces, difficulty, source);
+      record.flip();
+      long recordNumber = (logEnd - LOG_HEADER) / RECORD_SIZE;
+      writeFully(record);
+      int rank = add(index, score, recordNumber, source);
+      coverAll();
+      return new Result(rank, getGames(difficulty, source), getBest(difficulty),
+              source == SOURCE_PLAYER && score > previousBest);
+  }
+
+
+  // Appends a batch of games, e.g. a self-play run: game i scored scores[i] with pieces[i]
+  // pieces from seed firstSeed + i. Each chunk is in the log before any of it is indexed.
+  public void importAll(int difficulty, int[] scores, int[] pieces, long firstSeed, int source) throws IOException {
+      MappedByteBuffer index = indexes[difficulty];
+      ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE);
+      long now = System.currentTimeMillis();
+      long recordNumber = (logEnd - LOG_HEADER) / RECORD_SIZE;
+      for (int start = 0; start < scores.length; start += CHUNK_RECORDS) {
+          int end = Math.min(scores.length, start + CHUNK_RECORDS);
+          chunk.clear();
+          for (int i = start; i < end; i++) {
+              putRecord(chunk, now, firstSeed + i, scores[i], pieces[i], difficulty, source);
+          }
+          chunk.flip();
+          writeFully(chunk);
+          for (int i = start; i < end; i++) {
+              add(index, scores[i], recordNumber + i, source);
+          }
+          coverAll();
+      }
+  }
+
+
+  // Best player score on the difficulty, -1 for none.
+  public int getBest(int difficulty) {
+      return getTopCount(difficulty, SOURCE_PLAYER) > 0 ? getTopScore(difficulty, SOURCE_PLAYER, 1) : -1;
+  }
+
+
+  public long getGames(int difficulty, int source) { return indexes[difficulty].getLong(section(source) + GAMES); }
+  public int getTopCount(int difficulty, int source) { return indexes[difficulty].getInt(section(source) + COUNT); }
+  public int getTopScore(int difficulty, int source, int rank) {
+      return indexes[difficulty].getInt(section(source) + ENTRIES + (rank - 1) * ENTRY_SIZE);
+  }
+
+
+  @Override
+  public void close() throws IOException {
+      for (MappedByteBuffer index : indexes) {
+          if (index != null) index.force();
+      }
+      log.close();
+  }
+
+
+  private static void putRecord(ByteBuffer buffer, long time, long seed, int score, int pieces, int difficulty, int source) {
+      buffer.putLong(time).putLong(seed).putInt(score).putInt(pieces).put((byte) difficulty).put((byte) source);
+  }
+
+
+  private void writeFully(ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+          logEnd += log.write(buffer, logEnd);
+      }
+  }
+
+
+  // Counts the game and inserts it into its source's top list; returns its 1-based rank or 0.
+  private static int add(MappedByteBuffer index, int score, long recordNumber, int source) {
+      int section = section(source);
+      int entries = section + ENTRIES;
+      index.putLong(section + GAMES, index.getLong(section + GAMES) + 1);
+      int count = index.getInt(section + COUNT);
+      if (count == TOP_N && score <= index.getInt(entries + (TOP_N - 1) * ENTRY_SIZE)) return 0;
+      int position = count;
+      while (position > 0 && index.getInt(entries + (position - 1) * ENTRY_SIZE) < score) {
+          position--;
+      }
+      for (int i = Math.min(count, TOP_N - 1); i > position; i--) {
+          int from = entries + (i - 1) * ENTRY_SIZE;
+          index.putInt(from + ENTRY_SIZE, index.getInt(from));
+          index.putLong(from + ENTRY_SIZE + 4, index.getLong(from + 4));
+      }
+      index.putInt(entries + position * ENTRY_SIZE, score);
+      index.putLong(entries + position * ENTRY_SIZE + 4, recordNumber);
+      index.putInt(section + COUNT, Math.min(count + 1, TOP_N));
+      return position + 1;
+  }
+
+
+  // Every index now reflects the whole log.
+  private void coverAll() {
+      for (MappedByteBuffer index : indexes) {
+          index.putLong(COVERED, logEnd);
+      }
+  }
+
+
+  // Adds records from offset on to every index that has not covered them yet; an index is only
+  // marked covered once the whole log is in it.
+  private void catchUp(long offset) throws IOException {
+      ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE);
+      while (offset < logEnd) {
+          chunk.clear();
+          chunk.limit((int) Math.min(chunk.capacity(), logEnd - offset));
+          while (chunk.hasRemaining() && log.read(chunk, offset + chunk.position()) >= 0) { }
+          chunk.flip();
+          if (chunk.limit() == 0) break; // the file shrank underneath us
+          for (int at = 0; at + RECORD_SIZE <= chunk.limit(); at += RECORD_SIZE) {
+              long recordOffset = offset + at;
+              int difficulty = chunk.get(at + 24);
+              int source = chunk.get(at + 25);
+              if (difficulty < 0 || difficulty >= indexes.length || source < 0 || source >= SOURCES) continue;
+              MappedByteBuffer index = indexes[difficulty];
+              if (recordOffset < index.getLong(COVERED)) continue;
+              add(index, chunk.getInt(at + 16), (recordOffset - LOG_HEADER) / RECORD_SIZE, source);
+          }
+          offset += chunk.limit();
+      }
+      coverAll();
+  }
+}
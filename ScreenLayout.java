@@ -0,0 +1,76 @@
+import java.awt.Rectangle;
+
+
+// Maps the 720x720 design space every screen is laid out in onto the device pixels of a panel.
+// The design square is scaled uniformly to fit the panel and centred (letterboxed), and the
+// display's HiDPI transform is folded into the scale, so drawing at layout coordinates with an
+// identity transform lands on whole device pixels and sprites pre-scaled to layout sizes blit 1:1.
+final class ScreenLayout {
+  public static final int DESIGN_SIZE = 720;
+
+
+  private final int componentWidth;
+  private final int componentHeight;
+  private final double deviceScale;
+  private final double scale;
+  private final int originX;
+  private final int originY;
+  private final int contentSize;
+
+
+  // componentWidth/Height in component (user space) units; deviceScale is the transform's scale,
+  // e.g. 2.0 on a 200% display.
+  ScreenLayout(int componentWidth, int componentHeight, double deviceScale) {
+      this.componentWidth = componentWidth;
+      this.componentHeight = componentHeight;
+      this.deviceScale = deviceScale > 0 ? deviceScale : 1.0;
+      int deviceWidth = deviceWidth();
+      int deviceHeight = deviceHeight();
+      this.scale = Math.max(1, Math.min(deviceWidth, deviceHeight)) / (double) DESIGN_SIZE;
+      this.contentSize = (int) Math.round(DESIGN_SIZE * scale);
+      this.originX = (deviceWidth - contentSize) / 2;
+      this.originY = (deviceHeight - contentSize) / 2;
+  }
+
+
+  public boolean matches(int componentWidth, int componentHeight, double deviceScale) {
+      return this.componentWidth == componentWidth && this.componentHeight == componentHeight
+              && this.deviceScale == deviceScale;
+  }
+
+
+  public double getScale() { return scale; }
+  public double getDeviceScale() { return deviceScale; }
+  public int deviceWidth() { return Math.max(1, (int) Math.ceil(componentWidth * deviceScale)); }
+  public int deviceHeight() { return Math.max(1, (int) Math.ceil(componentHeight * deviceScale)); }
+  public boolean isLetterboxed() { return contentSize != deviceWidth() || contentSize != deviceHeight(); }
+
+
+  // Device pixel of a design coordinate.
+  public int x(int designX) { return originX + (int) Math.round(designX * scale); }
+  public int y(int designY) { return originY + (int) Math.round(designY * scale); }
+
+
+  // Device pixels covering a design length; rounded up so adjacent tiles never leave a gap.
+  public int size(int designLength) { return Math.max(1, (int) Math.ceil(designLength * scale)); }
+  public float size(float designLength) { return (float) (designLength * scale); }
+
+
+  // The design square in device pixels.
+  public Rectangle content() { return new Rectangle(originX, originY, contentSize, contentSize); }
+
+
+  // The component area (for repaint requests) covering a design rectangle, rounded outwards.
+  public Rectangle toComponent(int designX, int designY, int designWidth, int designHeight) {
+      int left = (int) Math.floor((originX + designX * scale) / deviceScale) - 1;
+      int top = (int) Math.floor((originY + designY * scale) / deviceScale) - 1;
+      int right = (int) Math.ceil((originX + (designX + designWidth) * scale) / deviceScale) + 1;
+      int bottom = (int) Math.ceil((originY + (designY + designHeight) * scale) / deviceScale) + 1;
+      return new Rectangle(left, top, right - left, bottom - top);
+  }
+
+
+  public Rectangle toComponent(Rectangle design) {
+      return toComponent(design.x, design.y, design.width, design.height);
+  }
+}
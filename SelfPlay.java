@@ -0,0 +1,186 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+
+// Batch self-play: runs many headless games in parallel with a pluggable policy and reports
+// throughput, score and game-length distributions.
+//
+// Usage: java -cp target/classes SelfPlay [--games=N] [--threads=N] [--policy=bot|bot:D|random|drop]
+//            [--difficulty=easy|medium|hard] [--think-ms=N] [--max-pieces=N] [--seed=N]
+//            [--generator=uniform|bag|sequence:LETTERS] [--rotation=srs|classic] [--preview=N]
+//            [--scores=DIR]
+//
+// Game i always uses seed + i, and workers claim game indices from a shared counter, so the
+// results do not depend on the thread count. --think-ms models the time a player takes per
+// piece: that many ms of gravity (at the difficulty's delay) are applied before the policy moves.
+// --scores imports every game into the ScoreStore in DIR (e.g. ScoreStore.DEFAULT_DIRECTORY).
+public class SelfPlay {
+  private static final String LOG = "[selfplay] ";
+
+
+  public static void main(String[] args) throws InterruptedException {
+      int games = 1000;
+      int threads = Runtime.getRuntime().availableProcessors();
+      String policyName = "bot";
+      int difficulty = 2;
+      int thinkMillis = 0;
+      int maxPieces = 10_000;
+      long seed = 1;
+      String generatorSpec = PieceGenerator.DEFAULT;
+      String rotationSpec = RotationSystem.SRS.spec();
+      int previewLength = 1;
+      Path scoreDirectory = null;
+      for (String arg : args) {
+          String value = arg.substring(arg.indexOf('=') + 1);
+          if (arg.startsWith("--games=")) {
+              games = Math.max(1, Integer.parseInt(value));
+          } else if (arg.startsWith("--threads=")) {
+              threads = Math.max(1, Integer.parseInt(value));
+          } else if (arg.startsWith("--policy=")) {
+              policyName = value;
+          } else if (arg.startsWith("--difficulty=")) {
+              difficulty = Arrays.asList(GameEngine.DIFFICULTY_NAMES).indexOf(value);
+              if (difficulty < 0) throw new IllegalArgumentException("Unknown difficulty: " + value);
+          } else if (arg.startsWith("--think-ms=")) {
+              thinkMillis = Integer.parseInt(value);
+          } else if (arg.startsWith("--max-pieces=")) {
+              maxPieces = Integer.parseInt(value);
+          } else if (arg.startsWith("--seed=")) {
+              seed = Long.parseLong(value);
+          } else if (arg.startsWith("--generator=")) {
+              generatorSpec = value;
+              PieceGenerator.named(generatorSpec); // fail fast on a bad spec
+          } else if (arg.startsWith("--rotation=")) {
+              rotationSpec = RotationSystem.named(value).spec();
+          } else if (arg.startsWith("--preview=")) {
+              previewLength = Integer.parseInt(value);
+          } else if (arg.startsWith("--scores=")) {
+              scoreDirectory = Paths.get(value);
+          } else {
+              System.err.println("Warning: Ignoring unknown option: " + arg);
+          }
+      }
+
+
+      int gravityDelay = GameEngine.DIFFICULTY_DELAYS[difficulty];
+      int ticksPerPiece = thinkMillis / gravityDelay;
+      System.out.printf(LOG + "%d games on %d threads, policy %s, %s (%d ms gravity), think %d ms, %s pieces%n",
+              games, threads, policyName, GameEngine.DIFFICULTY_NAMES[difficulty], gravityDelay, thinkMillis, generatorSpec);
+
+
+      int[] scores = new int[games];
+      int[] pieces = new int[games];
+      Supplier<GameEngine> engines = newEngines(generatorSpec, rotationSpec, previewLength);
+      long elapsed = run(games, threads, engines, PlayPolicy.named(policyName), seed, ticksPerPiece, maxPieces, scores, pieces);
+
+
+      double seconds = elapsed / 1e9;
+      long totalPieces = 0;
+      int cappedGames = 0;
+      for (int i = 0; i < games; i++) {
+          totalPieces += pieces[i];
+          if (pieces[i] > maxPieces) cappedGames++;
+      }
+      System.out.printf(LOG + "%.2f s  %.1f games/s  %.0f pieces/s  (%.0f pieces/s per thread)%n",
+              seconds, games / seconds, totalPieces / seconds, totalPieces / seconds / threads);
+      System.out.println(LOG + distribution("score ", scores));
+      System.out.println(LOG + distribution("pieces", pieces));
+      if (cappedGames > 0) {
+          System.out.println(LOG + cappedGames + " games reached --max-pieces without topping out");
+      }
+      if (scoreDirectory != null) {
+          long importStart = System.nanoTime();
+          try (ScoreStore store = ScoreStore.open(scoreDirectory)) {
+              store.importAll(difficulty, scores, pieces, seed, ScoreStore.SOURCE_SELF_PLAY);
+          } catch (IOException e) {
+              System.err.println("Error importing scores: " + scoreDirectory + " - " + e.getMessage());
+              return;
+          }
+          System.out.printf(LOG + "Imported %d games into %s in %.1f ms%n", games, scoreDirectory,
+                  (System.nanoTime() - importStart) / 1e6);
+      }
+  }
+
+
+  // Plays every game and fills scores/pieces by game index; returns the wall time in ns.
+  static long run(int games, int threads, Supplier<GameEngine> engines, Supplier<PlayPolicy> policies, long seed,
+                  int ticksPerPiece, int maxPieces, int[] scores, int[] pieces) throws InterruptedException {
+      AtomicInteger nextGame = new AtomicInteger();
+      AtomicInteger threadCount = new AtomicInteger();
+      ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+          Thread t = new Thread(r, "selfplay-" + threadCount.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+      });
+      long start = System.nanoTime();
+      for (int t = 0; t < threads; t++) {
+          pool.execute(() -> {
+              GameEngine engine = engines.get();
+              PlayPolicy policy = policies.get();
+              InputController.ActionTarget target = engine::step;
+              for (int game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()) {
+                  playGame(engine, policy, target, seed + game, ticksPerPiece, maxPieces, null);
+                  scores[game] = engine.getScore();
+                  pieces[game] = engine.getPieceCount();
+              }
+          });
+      }
+      pool.shutdown();
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      return System.nanoTime() - start;
+  }
+
+
+  // Engines drawing pieces from their own generator built from generatorSpec.
+  static Supplier<GameEngine> newEngines(String generatorSpec, String rotationSpec, int previewLength) {
+      return () -> {
+          GameEngine engine = new GameEngine();
+          engine.setGenerator(PieceGenerator.named(generatorSpec));
+          engine.setRotationSystem(RotationSystem.named(rotationSpec));
+          engine.setPreviewLength(previewLength);
+          return engine;
+      };
+  }
+
+
+  // With a recorder, gravity ticks are recorded too; target is expected to record the actions.
+  static void playGame(GameEngine engine, PlayPolicy policy, InputController.ActionTarget target,
+                       long seed, int ticksPerPiece, int maxPieces, Replay.Recorder recorder) {
+      engine.newGame(seed);
+      policy.newGame(seed);
+      DamageTracker damage = engine.getDamage();
+      while (!engine.isGameOver() && engine.getPieceCount() <= maxPieces) {
+          int piece = engine.getPieceCount();
+          for (int t = 0; t < ticksPerPiece && engine.getPieceCount() == piece && !engine.isGameOver(); t++) {
+              engine.tick();
+              if (recorder != null) recorder.record(Replay.GRAVITY);
+          }
+          if (engine.getPieceCount() == piece && !engine.isGameOver() && !policy.play(engine, target)) break;
+          damage.reset(); // nothing renders these games
+      }
+  }
+
+
+  private static String distribution(String name, int[] values) {
+      int[] sorted = values.clone();
+      Arrays.sort(sorted);
+      long sum = 0;
+      for (int v : sorted) sum += v;
+      return String.format("%s  min %d  p10 %d  p50 %d  p90 %d  p99 %d  max %d  mean %.1f", name,
+              sorted[0], percentile(sorted, 10), percentile(sorted, 50), percentile(sorted, 90),
+              percentile(sorted, 99), sorted[sorted.length - 1], (double) sum / sorted.length);
+  }
+
+
+  private static int percentile(int[] sorted, double percentile) {
+      int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+      return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+}
@@ -0,0 +1,40 @@
+// Fixed-point sine lookup. A phase is a Q16 index into a 1024-entry table, so one full turn is
+// TURN and phases wrap with PHASE_MASK; table values are sin * ONE.
+final class SineTable {
+  public static final int SIZE_BITS = 10;
+  public static final int SIZE = 1 << SIZE_BITS;
+  public static final int FRACTION_BITS = 16;
+  public static final int ONE = 1 << FRACTION_BITS;
+  public static final int TURN = SIZE << FRACTION_BITS;
+  public static final int PHASE_MASK = TURN - 1;
+
+
+  private static final int[] TABLE = new int[SIZE];
+
+
+  static {
+      for (int i = 0; i < SIZE; i++) {
+          TABLE[i] = (int) Math.round(Math.sin(2 * Math.PI * i / SIZE) * ONE);
+      }
+  }
+
+
+  private SineTable() { }
+
+
+  // Phase advance for an angle given in radians.
+  public static int phaseOf(double radians) {
+      return (int) Math.round(radians * TURN / (2 * Math.PI)) & PHASE_MASK;
+  }
+
+
+  public static int sin(int phase) {
+      return TABLE[(phase & PHASE_MASK) >>> FRACTION_BITS];
+  }
+
+
+  // amplitude * sin(phase), truncated toward zero like (int) (Math.sin(a) * amplitude).
+  public static int scaled(int phase, int amplitude) {
+      return sin(phase) * amplitude / ONE;
+  }
+}
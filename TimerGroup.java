@@ -0,0 +1,34 @@
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.Timer;
+
+
+// Owns the Swing Timers of one screen so they can all be stopped when it is disposed,
+// instead of each timer running until the JVM exits.
+class TimerGroup {
+  private final List<Timer> timers = new ArrayList<>();
+
+
+  public Timer create(int delay, ActionListener listener) {
+      Timer timer = new Timer(delay, listener);
+      timers.add(timer);
+      return timer;
+  }
+
+
+  public void stopAll() {
+      for (Timer timer : timers) {
+          timer.stop();
+      }
+  }
+
+
+  public int runningCount() {
+      int running = 0;
+      for (Timer timer : timers) {
+          if (timer.isRunning()) running++;
+      }
+      return running;
+  }
+}
@@ -0,0 +1,60 @@
+import java.util.Random;
+
+
+public class EngineBenchmarkHarness implements benchmarks.EngineHarness {
+  private final GameBoard snapshot = new GameBoard();
+  private GameEngine engine;
+
+
+  @Override
+  public int shapeCount() { return PieceTable.SHAPE_COUNT; }
+
+
+  @Override
+  public void setUp(long seed, int stackHeight, int fullRows) {
+      engine = new GameEngine(seed);
+      engine.newGame(seed);
+      Random random = new Random(seed);
+      snapshot.clear();
+      for (int i = 0; i < stackHeight; i++) {
+          int row = GameBoard.ROWS - 1 - i;
+          int hole = i < fullRows ? -1 : random.nextInt(GameBoard.COLS);
+          for (int col = 0; col < GameBoard.COLS; col++) {
+              if (col != hole && (i < fullRows || random.nextInt(4) != 0)) {
+                  snapshot.setCell(row, col, random.nextInt(PieceTable.PIECE_TYPES) + 1);
+              }
+          }
+      }
+      restoreBoard();
+  }
+
+
+  @Override
+  public void restoreBoard() { engine.getBoard().copyFrom(snapshot); }
+
+
+  @Override
+  public boolean canMove(int x, int y, int shape) { return engine.canMove(x, y, shape); }
+
+
+  @Override
+  public void landPiece() { engine.landPiece(); }
+
+
+  @Override
+  public int clearLines() { return engine.clearLines(); }
+
+
+  @Override
+  public int clearBottomLines(int rowCount) {
+      return engine.getBoard().clearLines(GameBoard.ROWS - rowCount, rowCount);
+  }
+
+
+  @Override
+  public void hardDrop() { engine.hardDrop(); }
+
+
+  @Override
+  public void spawnNewPiece() { engine.spawnNewPiece(); }
+}
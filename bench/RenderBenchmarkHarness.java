@@ -0,0 +1,47 @@
+import java.awt.image.BufferedImage;
+
+
+public class RenderBenchmarkHarness implements benchmarks.RenderHarness {
+  private ImagePanel imagePanel;
+  private GameRendererPanel panel;
+  private BufferedImage target;
+
+
+  @Override
+  public void setUp(String screen, int width, int height) {
+      imagePanel = new ImagePanel("./res/bg/mainmenu.png");
+      panel = imagePanel.getDrawingPanel();
+      panel.setSize(width, height);
+      target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+
+      // A deterministic mid-game stack spread across the well.
+      GameEngine engine = imagePanel.getEngine();
+      engine.newGame(42L);
+      for (int i = 0; i < 12 && !engine.isGameOver(); i++) {
+          GameEngine.Action shift = i % 2 == 0 ? GameEngine.Action.MOVE_LEFT : GameEngine.Action.MOVE_RIGHT;
+          for (int n = 0; n < i % 5; n++) {
+              engine.step(shift);
+          }
+          engine.step(GameEngine.Action.HARD_DROP);
+      }
+
+
+      imagePanel.showScreen(ImagePanel.Screen.valueOf(screen));
+  }
+
+
+  @Override
+  public void paint() {
+      panel.renderTo(target);
+  }
+
+
+  @Override
+  public void tearDown() {
+      imagePanel.dispose();
+      imagePanel = null;
+      panel = null;
+      target = null;
+  }
+}
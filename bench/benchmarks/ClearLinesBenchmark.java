@@ -0,0 +1,57 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+// clearLines with 0-4 complete rows at the bottom of a short or tall stack, checking every row
+// or only the four a landed piece could have filled. Includes the board restore; compare
+// against EngineBenchmark.restoreBoard.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClearLinesBenchmark {
+    @Param({"0", "1", "2", "3", "4"})
+    public int lines;
+
+
+    @Param({"8", "18"})
+    public int stackHeight;
+
+
+    private EngineHarness harness;
+
+
+    @Setup
+    public void setUp() {
+        harness = Harnesses.load("EngineBenchmarkHarness", EngineHarness.class);
+        harness.setUp(42L, stackHeight, lines);
+    }
+
+
+    @Benchmark
+    public int clearLines() {
+        harness.restoreBoard();
+        return harness.clearLines();
+    }
+
+
+    @Benchmark
+    public int clearTouchedLines() {
+        harness.restoreBoard();
+        return harness.clearBottomLines(4);
+    }
+}
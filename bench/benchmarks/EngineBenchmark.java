@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+// canMove, landPiece, hard drop and spawning over short and tall stacks.
+// Mutating benchmarks restore the board first; subtract restoreBoard for the net cost.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+    private static final int QUERIES = 256;
+
+
+    @Param({"4", "16"})
+    public int stackHeight;
+
+
+    private EngineHarness harness;
+    private final int[] queryX = new int[QUERIES];
+    private final int[] queryY = new int[QUERIES];
+    private final int[] queryShape = new int[QUERIES];
+
+
+    @Setup
+    public void setUp() {
+        harness = Harnesses.load("EngineBenchmarkHarness", EngineHarness.class);
+        harness.setUp(42L, stackHeight, 0);
+        Random random = new Random(7L);
+        for (int i = 0; i < QUERIES; i++) {
+            queryX[i] = random.nextInt(11) - 1;
+            queryY[i] = random.nextInt(20);
+            queryShape[i] = random.nextInt(harness.shapeCount());
+        }
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void canMove(Blackhole bh) {
+        for (int i = 0; i < QUERIES; i++) {
+            bh.consume(harness.canMove(queryX[i], queryY[i], queryShape[i]));
+        }
+    }
+
+
+    @Benchmark
+    public void restoreBoard() {
+        harness.restoreBoard();
+    }
+
+
+    @Benchmark
+    public void landPiece() {
+        harness.restoreBoard();
+        harness.landPiece();
+    }
+
+
+    @Benchmark
+    public void hardDrop() {
+        harness.restoreBoard();
+        harness.spawnNewPiece();
+        harness.hardDrop();
+    }
+
+
+    @Benchmark
+    public void spawnNewPiece() {
+        harness.spawnNewPiece();
+    }
+}
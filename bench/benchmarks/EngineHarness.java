@@ -0,0 +1,25 @@
+package benchmarks;
+
+
+public interface EngineHarness {
+    int shapeCount();
+
+    // Starts a seeded game over a stack of stackHeight rows, the lowest fullRows of them complete.
+    void setUp(long seed, int stackHeight, int fullRows);
+
+    // Restores the board built by setUp (the snapshot copy is part of every mutating benchmark).
+    void restoreBoard();
+
+    boolean canMove(int x, int y, int shape);
+
+    void landPiece();
+
+    int clearLines();
+
+    // Checks only the bottom rowCount rows, as a landing that filled them would.
+    int clearBottomLines(int rowCount);
+
+    void hardDrop();
+
+    void spawnNewPiece();
+}
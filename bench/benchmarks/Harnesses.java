@@ -0,0 +1,18 @@
+package benchmarks;
+
+
+// The game classes live in the unnamed package, which JMH-generated code cannot reference.
+// Each benchmark therefore drives the game through a small interface implemented by a
+// default-package harness in bench/, instantiated reflectively once during setup.
+final class Harnesses {
+    private Harnesses() { }
+
+
+    static <T> T load(String className, Class<T> type) {
+        try {
+            return type.cast(Class.forName(className).getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot load benchmark harness " + className, e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+// One full GameRendererPanel.paintComponent into a size x size offscreen image per screen state;
+// 720 is the design size, larger sizes draw from sprites cached at that scale. Loads assets from
+// ./res, so run from the repository root.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RenderBenchmark {
+    @Param({"MENU", "GAME", "PAUSE", "GAME_OVER"})
+    public String screen;
+
+
+    @Param({"720", "1440"})
+    public int size;
+
+
+    private RenderHarness harness;
+
+
+    @Setup
+    public void setUp() {
+        harness = Harnesses.load("RenderBenchmarkHarness", RenderHarness.class);
+        harness.setUp(screen, size, size);
+    }
+
+
+    @TearDown
+    public void tearDown() {
+        harness.tearDown();
+    }
+
+
+    @Benchmark
+    public void paintComponent() {
+        harness.paint();
+    }
+}
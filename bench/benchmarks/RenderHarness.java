@@ -0,0 +1,12 @@
+package benchmarks;
+
+
+public interface RenderHarness {
+    // screen is one of MENU, GAME, PAUSE, GAME_OVER.
+    void setUp(String screen, int width, int height);
+
+    // Runs GameRendererPanel.paintComponent into an offscreen image.
+    void paint();
+
+    void tearDown();
+}
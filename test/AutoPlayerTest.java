@@ -0,0 +1,90 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+
+// Checks that the bot's candidate placements cover every state the piece can turn into, in
+// either direction, and that playing a candidate turns the way the search did.
+class AutoPlayerTest {
+  private static final int T = PieceTable.typeForLetter('T');
+  private static final int CANDIDATES = PieceTable.MAX_ROTATIONS * GameBoard.COLS;
+
+
+  @Test
+  void emptyBoardReachesEveryStateWithTheFewestTurns() {
+      for (int type = 1; type <= PieceTable.PIECE_TYPES; type++) {
+          int[] turns = collect(new GameBoard(), type);
+          int seenShapes = 0;
+          for (int rotation = 0; rotation < PieceTable.MAX_ROTATIONS; rotation++) {
+              int canonical = PieceTable.canonicalShape(PieceTable.shapeIndex(type, rotation));
+              if (canonical != PieceTable.shapeIndex(type, rotation)) continue;
+              seenShapes++;
+              int expected = rotation == 3 ? -1 : rotation;
+              assertEquals(expected, turns[rotation], PieceTable.TYPE_LETTERS.charAt(type - 1) + " state " + rotation);
+          }
+          assertEquals(PieceTable.rotationCount(type), seenShapes);
+      }
+  }
+
+
+  @Test
+  void findsStatesOnlyReachableCounterClockwise() {
+      // The T turns clockwise to R, but every kick from R to 2 is blocked, so L is only one
+      // counter-clockwise turn away
+      GameBoard board = blockedBoard();
+      int spawn = PieceTable.shapeIndex(T, 0);
+      int position = RotationSystem.SRS.rotate(board, T, 0, PieceTable.spawnX(spawn), RotationSystem.SRS.spawnY(spawn),
+              RotationSystem.CLOCKWISE);
+      assertTrue(position >= 0);
+      assertEquals(-1, RotationSystem.SRS.rotate(board, T, 1, RotationSystem.x(position), RotationSystem.y(position),
+              RotationSystem.CLOCKWISE));
+
+
+      int[] turns = collect(board, T);
+      assertEquals(1, turns[1]);
+      assertEquals(-1, turns[3]);
+  }
+
+
+  @Test
+  void playsTheTurnsItSearched() {
+      GameEngine engine = new GameEngine(1);
+      engine.setGenerator(PieceGenerator.named("sequence:T"));
+      engine.newGame(1);
+      engine.getBoard().copyFrom(blockedBoard());
+      StringBuilder played = new StringBuilder();
+      // Rewarding bumpiness makes an upright T in state L the best placement here
+      AutoPlayer bot = new AutoPlayer(new PlacementHeuristic(0, 0, 0, 1), 1, false);
+      assertTrue(bot.play(engine, action -> {
+          boolean changed = engine.step(action);
+          played.append(action).append(changed ? " " : "(failed) ");
+          return changed;
+      }));
+      assertTrue(played.toString().startsWith("ROTATE_CCW "), played.toString());
+      assertTrue(played.indexOf("(failed)") < 0, played.toString());
+  }
+
+
+  private static GameBoard blockedBoard() {
+      GameBoard board = new GameBoard();
+      board.setCell(1, 3, 1);
+      board.setCell(2, 5, 1);
+      return board;
+  }
+
+
+  // Fewest signed turns to each state of the type from spawn on board, 99 where unreachable.
+  private static int[] collect(GameBoard board, int type) {
+      int spawn = PieceTable.shapeIndex(type, 0);
+      int[] shapes = new int[CANDIDATES];
+      int[] turnCounts = new int[CANDIDATES];
+      int count = AutoPlayer.collectCandidates(board, RotationSystem.SRS, type, 0,
+              PieceTable.spawnX(spawn), RotationSystem.SRS.spawnY(spawn), shapes, turnCounts, new int[CANDIDATES], new int[CANDIDATES]);
+      int[] turns = { 99, 99, 99, 99 };
+      for (int i = 0; i < count; i++) {
+          turns[shapes[i] % PieceTable.MAX_ROTATIONS] = turnCounts[i];
+      }
+      return turns;
+  }
+}
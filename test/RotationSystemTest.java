@@ -0,0 +1,119 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+
+// Rotates every piece once from where it spawns on an empty field and compares the cells it
+// ends on with the SRS reference states, placed with the rotation box at the spawn column and
+// the top row of the field. On an empty field no kick is needed, so the first test must pass.
+class RotationSystemTest {
+  // SRS reference states 0, R, 2, L of each piece type, in PieceTable.TYPE_LETTERS order
+  private static final String[][] REFERENCE = {
+      { ".X.|XXX|...", ".X.|.XX|.X.", "...|XXX|.X.", ".X.|XX.|.X." }, // T
+      { ".XX|XX.|...", ".X.|.XX|..X", "...|.XX|XX.", "X..|XX.|.X." }, // S
+      { "..X|XXX|...", ".X.|.X.|.XX", "...|XXX|X..", "XX.|.X.|.X." }, // L
+      { "X..|XXX|...", ".XX|.X.|.X.", "...|XXX|..X", ".X.|.X.|XX." }, // J
+      { "....|XXXX|....|....", "..X.|..X.|..X.|..X.", "....|....|XXXX|....", ".X..|.X..|.X..|.X.." }, // I
+      { ".XX.|.XX.|....", ".XX.|.XX.|....", ".XX.|.XX.|....", ".XX.|.XX.|...." }, // O
+      { "XX.|.XX|...", "..X|.XX|.X.", "...|XX.|.XX", ".X.|XX.|X.." } // Z
+  };
+
+
+  @Test
+  void spawnsWithTheRotationBoxOnTheTopRow() {
+      for (int type = 1; type <= PieceTable.PIECE_TYPES; type++) {
+          GameEngine engine = spawn(type);
+          assertEquals(reference(type, 0), cells(engine), name(type) + " spawn");
+      }
+  }
+
+
+  @Test
+  void rotatesClockwiseFromSpawnAboutTheBoxCentre() {
+      for (int type = 1; type <= PieceTable.PIECE_TYPES; type++) {
+          GameEngine engine = spawn(type);
+          engine.step(GameEngine.Action.ROTATE);
+          assertEquals(1, engine.getCurrentPieceRotation(), name(type) + " 0->R");
+          assertEquals(reference(type, 1), cells(engine), name(type) + " 0->R");
+      }
+  }
+
+
+  @Test
+  void rotatesCounterClockwiseFromSpawnAboutTheBoxCentre() {
+      for (int type = 1; type <= PieceTable.PIECE_TYPES; type++) {
+          GameEngine engine = spawn(type);
+          engine.step(GameEngine.Action.ROTATE_CCW);
+          assertEquals(3, engine.getCurrentPieceRotation(), name(type) + " 0->L");
+          assertEquals(reference(type, 3), cells(engine), name(type) + " 0->L");
+      }
+  }
+
+
+  @Test
+  void fullTurnFromSpawnEndsWhereItStarted() {
+      for (int type = 1; type <= PieceTable.PIECE_TYPES; type++) {
+          GameEngine engine = spawn(type);
+          for (int rotation = 1; rotation <= PieceTable.MAX_ROTATIONS; rotation++) {
+              engine.step(GameEngine.Action.ROTATE);
+              int state = rotation % PieceTable.MAX_ROTATIONS;
+              assertEquals(reference(type, state), cells(engine), name(type) + " turn " + rotation);
+          }
+      }
+  }
+
+
+  @Test
+  void classicKeepsSpawningOnTheTopRow() {
+      GameEngine engine = new GameEngine(1);
+      engine.setGenerator(PieceGenerator.named("sequence:I"));
+      engine.setRotationSystem(RotationSystem.CLASSIC);
+      engine.newGame(1);
+      assertEquals(0, engine.getCurrentPieceGridY());
+  }
+
+
+  private static GameEngine spawn(int type) {
+      GameEngine engine = new GameEngine(1);
+      engine.setGenerator(PieceGenerator.named("sequence:" + name(type)));
+      engine.setRotationSystem(RotationSystem.SRS);
+      engine.newGame(1);
+      assertEquals(type, engine.getCurrentPieceType());
+      return engine;
+  }
+
+
+  private static String name(int type) {
+      return String.valueOf(PieceTable.TYPE_LETTERS.charAt(type - 1));
+  }
+
+
+  // Field cells of a reference state, the box centred on the field the way pieces spawn.
+  private static Set<String> reference(int type, int state) {
+      String[] rows = REFERENCE[type - 1][state].split("\\|");
+      int boxLeft = GameBoard.COLS / 2 - rows[0].length() / 2;
+      Set<String> cells = new TreeSet<>();
+      for (int r = 0; r < rows.length; r++) {
+          for (int c = 0; c < rows[r].length(); c++) {
+              if (rows[r].charAt(c) == 'X') cells.add((boxLeft + c) + "," + r);
+          }
+      }
+      return cells;
+  }
+
+
+  private static Set<String> cells(GameEngine engine) {
+      int shape = engine.getCurrentPieceShape();
+      Set<String> cells = new TreeSet<>();
+      for (int r = 0; r < PieceTable.height(shape); r++) {
+          for (int c = 0; c < PieceTable.width(shape); c++) {
+              if ((PieceTable.rowMask(shape, r) & 1 << c) != 0) {
+                  cells.add((engine.getCurrentPieceGridX() + c) + "," + (engine.getCurrentPieceGridY() + r));
+              }
+          }
+      }
+      return cells;
+  }
+}